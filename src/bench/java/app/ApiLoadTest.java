@@ -0,0 +1,116 @@
+package app;
+
+import services.QuantileSketch;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load test for a running {@link HeadlessMain}: each worker (a virtual thread)
+ * sends requests back to back for the given time, mixing task and session
+ * reads, stats and a few task creations. Prints throughput and latency
+ * percentiles, where the tail (p99, p99.9) shows lock contention.
+ *
+ *   java app.ApiLoadTest http://localhost:8080 64 30
+ */
+public class ApiLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        List<Future<Result>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < workers; i++) {
+                int worker = i;
+                futures.add(executor.submit(() -> runWorker(client, baseUrl, worker, deadline)));
+            }
+        }
+
+        QuantileSketch latencies = new QuantileSketch();
+        long requests = 0;
+        long errors = 0;
+        for (Future<Result> future : futures) {
+            Result result = future.get();
+            latencies.merge(result.latenciesMillis);
+            requests += result.requests;
+            errors += result.errors;
+        }
+
+        System.out.printf("%d workers, %d s: %d requests (%d errors), %.0f req/s%n",
+                workers, seconds, requests, errors, requests / (double) seconds);
+        System.out.printf("latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f%n",
+                latencies.getP50(), latencies.getP90(), latencies.getP99(), latencies.getQuantile(0.999));
+    }
+
+    private static final class Result {
+        final QuantileSketch latenciesMillis = new QuantileSketch();
+        long requests;
+        long errors;
+    }
+
+    private static Result runWorker(HttpClient client, String baseUrl, int worker, long deadline) {
+        Result result = new Result();
+        long n = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = nextRequest(baseUrl, worker, n++);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() >= 400) {
+                    result.errors++;
+                }
+            } catch (Exception e) {
+                result.errors++;
+            }
+            result.latenciesMillis.add((System.nanoTime() - start) / 1_000_000.0);
+            result.requests++;
+        }
+        return result;
+    }
+
+    /**
+     * Mostly reads, with one write in fifty requests
+     */
+    private static HttpRequest nextRequest(String baseUrl, int worker, long n) {
+        String path;
+        switch ((int) (n % 50)) {
+            case 0:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"title\": \"Load test " + worker + "-" + n + "\", \"estimatedTime\": 25}"))
+                        .build();
+            case 1:
+            case 2:
+                path = "/api/stats";
+                break;
+            case 3:
+            case 4:
+            case 5:
+                path = "/api/sessions";
+                break;
+            case 6:
+                path = "/api/tasks?q=load";
+                break;
+            default:
+                path = n % 2 == 0 ? "/api/tasks?sort=NAME_ASC" : "/api/timer";
+                break;
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+}
@@ -0,0 +1,130 @@
+package app;
+
+import controllers.MainController;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.SetChangeListener;
+import javafx.css.PseudoClass;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import models.Task;
+import services.DataBatch;
+import services.DataManager;
+import services.QuantileSketch;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Scrolls the task list of a {@link MainController} through 10,000 tasks
+ * (mixed completed, estimated, over-estimate and in-progress states) a few rows
+ * per frame, and prints frame times plus the style changes made on the cells:
+ * inline setStyle calls and style-class edits each make JavaFX parse or match
+ * CSS again for that node, while pseudo-class changes only re-match cached
+ * selectors. Data lives in a scratch directory, not in data/.
+ *
+ *   java app.TaskListScrollBenchmark 10000 600
+ */
+public class TaskListScrollBenchmark extends Application {
+    private static final int ROWS_PER_FRAME = 3;
+
+    private long inlineStyleChanges = 0;
+    private long styleClassChanges = 0;
+    private long pseudoClassChanges = 0;
+    private final Map<Node, Boolean> watched = new IdentityHashMap<>();
+
+    @Override
+    public void start(Stage stage) throws Exception {
+        int taskCount = getParameters().getUnnamed().size() > 0 ? Integer.parseInt(getParameters().getUnnamed().get(0)) : 10_000;
+        int frames = getParameters().getUnnamed().size() > 1 ? Integer.parseInt(getParameters().getUnnamed().get(1)) : 600;
+
+        Path dataDirectory = Files.createTempDirectory("scroll-benchmark");
+        DataManager dataManager = new DataManager(dataDirectory);
+        DataBatch batch = dataManager.batch();
+        for (int i = 0; i < taskCount; i++) {
+            Task task = new Task("Task " + i, "", i % 2 == 0 ? 30 : 0);
+            task.setTotalTimeSpent(i % 5 * 15);  // Some over their estimate, some in progress
+            task.setCompleted(i % 3 == 0);
+            batch.addTask(task);
+        }
+        batch.apply();
+
+        MainController controller = new MainController(dataManager);
+        VBox root = controller.getView();
+        Scene scene = new Scene(root, 800, 600);
+        scene.getStylesheets().add(getClass().getResource("/css/styles.css").toExternalForm());
+        stage.setScene(scene);
+        stage.show();
+
+        ListView<?> listView = (ListView<?>) root.lookup(".list-view");
+        QuantileSketch frameMillis = new QuantileSketch();
+
+        new AnimationTimer() {
+            private long last = 0;
+            private int frame = 0;
+            private int index = 0;
+
+            @Override
+            public void handle(long now) {
+                // Cells are created on the first layouts and reused after that
+                for (Node cell : listView.lookupAll(".list-cell")) {
+                    watch(cell);
+                }
+                if (last != 0) {
+                    frameMillis.add((now - last) / 1_000_000.0);
+                }
+                last = now;
+
+                index = (index + ROWS_PER_FRAME) % taskCount;
+                listView.scrollTo(index);
+                if (++frame > frames) {
+                    stop();
+                    report(taskCount, frameMillis);
+                    dataManager.close();
+                    Platform.exit();
+                }
+            }
+        }.start();
+    }
+
+    /**
+     * Count style changes on a node and everything below it
+     */
+    private void watch(Node node) {
+        if (watched.put(node, Boolean.TRUE) != null) {
+            return;
+        }
+        node.styleProperty().addListener((InvalidationListener) obs -> inlineStyleChanges++);
+        node.getStyleClass().addListener((ListChangeListener<String>) change -> styleClassChanges++);
+        node.getPseudoClassStates().addListener((SetChangeListener<PseudoClass>) change -> pseudoClassChanges++);
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                watch(child);
+            }
+        }
+    }
+
+    private void report(int taskCount, QuantileSketch frameMillis) {
+        long frames = frameMillis.getCount();
+        System.out.printf("%d tasks, %d frames, %d rows per frame%n", taskCount, frames, ROWS_PER_FRAME);
+        System.out.printf("frame ms: mean %.2f  p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n",
+                frameMillis.getMean(), frameMillis.getP50(), frameMillis.getP90(),
+                frameMillis.getP99(), frameMillis.getQuantile(1.0));
+        System.out.printf("per frame: %.1f inline style changes, %.1f style class changes, %.1f pseudo-class changes%n",
+                inlineStyleChanges / (double) frames, styleClassChanges / (double) frames,
+                pseudoClassChanges / (double) frames);
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
@@ -0,0 +1,53 @@
+package app;
+
+import com.sun.net.httpserver.HttpServer;
+import controllers.ApiController;
+import services.DataManager;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the app without a window, serving the JSON API of {@link ApiController}
+ * on the given port (8080 by default). Each request gets its own virtual thread,
+ * so slow clients and blocking file I/O do not hold up other requests:
+ *
+ *   java app.HeadlessMain 8080
+ *   curl localhost:8080/api/tasks
+ *
+ * The API has no authentication, so it only listens on the loopback interface
+ * unless an address to bind to is given, e.g. {@code java app.HeadlessMain 8080 0.0.0.0}
+ */
+public class HeadlessMain {
+    private static final int DEFAULT_PORT = 8080;
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        InetAddress address = args.length > 1 ? InetAddress.getByName(args[1]) : InetAddress.getLoopbackAddress();
+
+        DataManager dataManager = new DataManager();
+        dataManager.loadData();
+        ApiController apiController = new ApiController(dataManager);
+
+        ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+        HttpServer server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext("/api/", apiController);
+        server.setExecutor(requests);
+
+        // Merge changes made by other instances sharing the data directory
+        dataManager.watchExternalChanges(Runnable::run, () -> { });
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            requests.shutdown();
+            apiController.close();
+            dataManager.close(); // Changes are saved as they happen; this flushes statistics and settings
+        }));
+
+        server.start();
+        System.out.println("Serving the study API on http://" + address.getHostAddress() + ":" + port + "/api/");
+    }
+}
@@ -2,6 +2,7 @@ package app;
 
 import controllers.MainController;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
@@ -28,10 +29,24 @@ public class Main extends Application {
             primaryStage.setScene(scene);
             primaryStage.show();
 
-            primaryStage.setOnCloseRequest(event -> {
-                dataManager.saveData();
+            // Background mode while the window is minimized or hidden
+            primaryStage.iconifiedProperty().addListener((obs, oldVal, minimized) ->
+                mainController.setBackgroundMode(minimized || !primaryStage.isShowing()));
+            primaryStage.showingProperty().addListener((obs, oldVal, showing) ->
+                mainController.setBackgroundMode(!showing || primaryStage.isIconified()));
+            primaryStage.focusedProperty().addListener((obs, oldVal, focused) -> {
+                // Regaining focus always means the window is visible again
+                if (focused) {
+                    mainController.setBackgroundMode(false);
+                }
             });
 
+            // Merge changes made by other instances sharing the data directory
+            dataManager.watchExternalChanges(Platform::runLater, mainController::refreshAfterExternalChange);
+
+            // Every change is already saved; closing flushes statistics and settings
+            primaryStage.setOnCloseRequest(event -> dataManager.close());
+
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -0,0 +1,26 @@
+package app;
+
+import services.SyncEngine;
+
+import java.nio.file.Paths;
+
+/**
+ * Command-line sync between two data directories, e.g. the local data/
+ * folder and a copy on a shared drive or a folder served as a sync server:
+ *
+ *   java app.SyncMain data /mnt/shared/studyapp-data
+ */
+public class SyncMain {
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: SyncMain <data directory> <other data directory>");
+            System.exit(2);
+        }
+        try (SyncEngine.Replica first = SyncEngine.Replica.open(Paths.get(args[0]));
+             SyncEngine.Replica second = SyncEngine.Replica.open(Paths.get(args[1]))) {
+            SyncEngine.Result result = new SyncEngine().sync(first, second);
+            System.out.println("Sync finished: " + result);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package controllers;
+
+import javafx.animation.Animation;
+import javafx.animation.FadeTransition;
+import javafx.beans.property.ReadOnlyProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.util.Duration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Central owner of the looping animations used by the task list.
+ * Keeps at most one pulse per node, lets cells stop their pulse when they are
+ * recycled or scrolled off-screen, and pauses everything while the window is minimized.
+ */
+public class AnimationManager {
+    private static final Duration PULSE_DURATION = Duration.seconds(1);
+    private static final double PULSE_MIN_OPACITY = 0.3;
+
+    // Each animation refers to its node, so entries are removed explicitly: when the
+    // pulse stops, or when the node leaves its scene (e.g. a cell the list discarded)
+    private final Map<Node, FadeTransition> pulses = new HashMap<>();
+    private final ChangeListener<Scene> sceneListener = (observable, oldScene, newScene) -> {
+        if (newScene == null) {
+            stopPulse((Node) ((ReadOnlyProperty<?>) observable).getBean());
+        }
+    };
+
+    private boolean paused = false;
+    private boolean reducedMotion;
+
+    public AnimationManager() {
+        this(Boolean.getBoolean("studyapp.reducedMotion"));
+    }
+
+    public AnimationManager(boolean reducedMotion) {
+        this.reducedMotion = reducedMotion;
+    }
+
+    /**
+     * Start (or keep) the pulse on a node. Calling this repeatedly for the same
+     * node reuses the existing animation instead of stacking new ones.
+     */
+    public void startPulse(Node node) {
+        if (reducedMotion) {
+            stopPulse(node);
+            return;
+        }
+
+        FadeTransition pulse = pulses.get(node);
+        if (pulse == null) {
+            pulse = new FadeTransition(PULSE_DURATION, node);
+            pulse.setFromValue(PULSE_MIN_OPACITY);
+            pulse.setToValue(1.0);
+            pulse.setCycleCount(Animation.INDEFINITE);
+            pulse.setAutoReverse(true);
+            pulses.put(node, pulse);
+            node.sceneProperty().addListener(sceneListener);
+        }
+
+        if (!paused && pulse.getStatus() != Animation.Status.RUNNING) {
+            pulse.play();
+        }
+    }
+
+    /**
+     * Stop and forget the pulse on a node, restoring full opacity
+     */
+    public void stopPulse(Node node) {
+        FadeTransition pulse = pulses.remove(node);
+        if (pulse != null) {
+            pulse.stop();
+            node.sceneProperty().removeListener(sceneListener);
+        }
+        node.setOpacity(1.0);
+    }
+
+    /**
+     * Pause every running animation, e.g. while the stage is minimized
+     */
+    public void pauseAll() {
+        paused = true;
+        for (FadeTransition pulse : pulses.values()) {
+            pulse.pause();
+        }
+    }
+
+    /**
+     * Resume animations paused by {@link #pauseAll()}
+     */
+    public void resumeAll() {
+        paused = false;
+        if (reducedMotion) {
+            return;
+        }
+        for (FadeTransition pulse : pulses.values()) {
+            pulse.play();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isReducedMotion() {
+        return reducedMotion;
+    }
+
+    /**
+     * In reduced-motion mode no looping animation runs and one-shot
+     * transitions (completion, delete) are skipped.
+     */
+    public void setReducedMotion(boolean reducedMotion) {
+        this.reducedMotion = reducedMotion;
+        if (reducedMotion) {
+            for (Map.Entry<Node, FadeTransition> entry : pulses.entrySet()) {
+                entry.getValue().stop();
+                entry.getKey().setOpacity(1.0);
+                entry.getKey().sceneProperty().removeListener(sceneListener);
+            }
+            pulses.clear();
+        }
+    }
+
+    /**
+     * Whether one-shot transitions should be played
+     */
+    public boolean isMotionAllowed() {
+        return !reducedMotion && !paused;
+    }
+
+    public int getActivePulseCount() {
+        return pulses.size();
+    }
+}
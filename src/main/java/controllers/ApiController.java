@@ -0,0 +1,473 @@
+package controllers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import models.AnalyticsReport;
+import models.SessionConfiguration;
+import models.SessionType;
+import models.StudySession;
+import models.Task;
+import models.TaskSortOrder;
+import models.TaskType;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import services.DataManager;
+import services.JsonRecords;
+import services.QuantileSketch;
+import services.SessionColumnStore;
+import services.SessionStatistics;
+import services.TimerService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * JSON API over the data manager and a timer, for running without the UI.
+ * Requests may arrive on many threads at once; the data manager locks
+ * internally, and every timer operation runs on a single timer thread.
+ *
+ *   GET    /api/tasks?status=active|completed&sort=NAME_ASC&q=words
+ *   POST   /api/tasks                      {"title", "description", "estimatedTime", "taskType"}
+ *   GET    /api/tasks/{id}
+ *   PATCH  /api/tasks/{id}                 any of the POST fields, "completed", "totalTimeSpent"
+ *   DELETE /api/tasks/{id}
+ *   GET    /api/sessions?date=2024-05-01 | ?q=words
+ *   POST   /api/sessions                   {"durationMinutes", "subject", "notes", "sessionType", "projectName"}
+ *   DELETE /api/sessions/{id}?startTime=2024-05-01T09:30   (the start time spares a search of every month)
+ *   GET    /api/timer
+ *   POST   /api/timer/start|pause|reset|break|work   (start takes an optional "taskId")
+ *   POST   /api/timer/config               {"sessionType", "workMinutes", "breakMinutes", "autoStartBreaks", "autoStartWork"}
+ *   GET    /api/stats
+ */
+public class ApiController implements HttpHandler {
+    private static final String PREFIX = "/api/";
+
+    private final DataManager dataManager;
+    private final ExecutorService timerEvents;
+    private final TimerService timerService;
+    private String timerTaskId; // Task credited with completed work sessions; timer thread only
+
+    /**
+     * Failed request, answered with its status code and message
+     */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    public ApiController(DataManager dataManager) {
+        this.dataManager = dataManager;
+        this.timerEvents = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timer-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timerService = new TimerService(SessionType.WORK, timerEvents, dataManager.getSettings());
+        onTimerThread(() -> {
+            timerService.setOnSessionComplete(this::completeTimerSession);
+            return null;
+        });
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (!path.startsWith(PREFIX)) {
+                throw new ApiException(404, "Not found");
+            }
+            String[] parts = path.substring(PREFIX.length()).split("/");
+            String method = exchange.getRequestMethod();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            Object response;
+            switch (parts[0]) {
+                case "tasks":
+                    response = handleTasks(method, parts, query, exchange);
+                    break;
+                case "sessions":
+                    response = handleSessions(method, parts, query, exchange);
+                    break;
+                case "timer":
+                    response = handleTimer(method, parts, exchange);
+                    break;
+                case "stats":
+                    requireMethod(method, "GET");
+                    response = getStats();
+                    break;
+                default:
+                    throw new ApiException(404, "Not found");
+            }
+
+            if (response == null) {
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                send(exchange, "POST".equals(method) && parts.length == 1 ? 201 : 200, response.toString());
+            }
+        } catch (ApiException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (JSONException | IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e.getMessage());
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ==================== TASKS ====================
+
+    private Object handleTasks(String method, String[] parts, Map<String, String> query, HttpExchange exchange) throws IOException {
+        if (parts.length == 1) {
+            if ("GET".equals(method)) {
+                return tasksToJson(findTasks(query));
+            }
+            requireMethod(method, "POST");
+            JSONObject body = readBody(exchange);
+            Task task = new Task(body.getString("title"), body.optString("description", ""),
+                    body.optInt("estimatedTime", 0), TaskType.valueOf(body.optString("taskType", "WORK")));
+            dataManager.addTask(task);
+            return JsonRecords.taskToJson(task);
+        }
+
+        String id = parts[1];
+        switch (method) {
+            case "GET":
+                return JsonRecords.taskToJson(requireTask(dataManager.getTask(id)));
+            case "PUT":
+            case "PATCH":
+                Consumer<Task> change = parseTaskFields(readBody(exchange));
+                return JsonRecords.taskToJson(requireTask(dataManager.modifyTask(id, change)));
+            case "DELETE":
+                dataManager.removeTask(requireTask(dataManager.getTask(id)));
+                return null;
+            default:
+                throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    private List<Task> findTasks(Map<String, String> query) {
+        List<Task> tasks;
+        if (query.containsKey("q")) {
+            tasks = dataManager.searchTasks(query.get("q"));
+        } else if (query.containsKey("sort")) {
+            tasks = dataManager.getTasksSorted(TaskSortOrder.valueOf(query.get("sort")));
+        } else {
+            tasks = dataManager.getTasks();
+        }
+
+        String status = query.getOrDefault("status", "all");
+        if (!"all".equals(status)) {
+            boolean completed = "completed".equals(status);
+            tasks.removeIf(task -> task.isCompleted() != completed);
+        }
+        return tasks;
+    }
+
+    /**
+     * Parse and check every field of the body before anything is changed, so
+     * a bad field rejects the whole request instead of half-editing the task
+     * @return the change to apply to the task
+     */
+    private static Consumer<Task> parseTaskFields(JSONObject body) {
+        String title = body.has("title") ? body.getString("title") : null;
+        String description = body.has("description") ? body.getString("description") : null;
+        Boolean completed = body.has("completed") ? body.getBoolean("completed") : null;
+        Integer estimatedTime = body.has("estimatedTime") ? body.getInt("estimatedTime") : null;
+        Integer totalTimeSpent = body.has("totalTimeSpent") ? body.getInt("totalTimeSpent") : null;
+        TaskType taskType = body.has("taskType") ? TaskType.valueOf(body.getString("taskType")) : null;
+        return task -> {
+            if (title != null) {
+                task.setTitle(title);
+            }
+            if (description != null) {
+                task.setDescription(description);
+            }
+            if (completed != null) {
+                task.setCompleted(completed);
+            }
+            if (estimatedTime != null) {
+                task.setEstimatedTime(estimatedTime);
+            }
+            if (totalTimeSpent != null) {
+                task.setTotalTimeSpent(totalTimeSpent);
+            }
+            if (taskType != null) {
+                task.setTaskType(taskType);
+            }
+        };
+    }
+
+    private static Task requireTask(Task task) {
+        if (task == null) {
+            throw new ApiException(404, "No such task");
+        }
+        return task;
+    }
+
+    private static JSONArray tasksToJson(List<Task> tasks) {
+        JSONArray array = new JSONArray();
+        for (Task task : tasks) {
+            array.put(JsonRecords.taskToJson(task));
+        }
+        return array;
+    }
+
+    // ==================== SESSIONS ====================
+
+    private Object handleSessions(String method, String[] parts, Map<String, String> query, HttpExchange exchange) throws IOException {
+        if (parts.length == 1) {
+            if ("GET".equals(method)) {
+                List<StudySession> sessions = query.containsKey("q")
+                        ? dataManager.searchSessions(query.get("q"))
+                        : dataManager.getStudySessionsForDate(query.containsKey("date")
+                                ? LocalDate.parse(query.get("date")) : LocalDate.now());
+                JSONArray array = new JSONArray();
+                for (StudySession session : sessions) {
+                    array.put(JsonRecords.sessionToJson(session));
+                }
+                return array;
+            }
+            requireMethod(method, "POST");
+            JSONObject body = readBody(exchange);
+            StudySession session = new StudySession(body.getInt("durationMinutes"), body.optString("subject", ""),
+                    SessionType.valueOf(body.optString("sessionType", "WORK")));
+            if (body.has("startTime")) {
+                session.setStartTime(LocalDateTime.parse(body.getString("startTime")));
+                session.setEndTime(session.getStartTime().plusMinutes(session.getDurationMinutes()));
+            }
+            session.setNotes(body.optString("notes", ""));
+            session.setProjectName(body.optString("projectName", ""));
+            dataManager.addStudySession(session);
+            return JsonRecords.sessionToJson(session);
+        }
+
+        requireMethod(method, "DELETE");
+        boolean removed = query.containsKey("startTime")
+                ? dataManager.removeStudySession(parts[1], SessionColumnStore.toMicros(LocalDateTime.parse(query.get("startTime"))))
+                : dataManager.removeStudySession(parts[1]);
+        if (!removed) {
+            throw new ApiException(404, "No such session");
+        }
+        return null;
+    }
+
+    // ==================== TIMER ====================
+
+    private Object handleTimer(String method, String[] parts, HttpExchange exchange) throws IOException {
+        if (parts.length == 1) {
+            requireMethod(method, "GET");
+            return onTimerThread(this::timerState);
+        }
+        requireMethod(method, "POST");
+        JSONObject body = readBody(exchange);
+        String action = parts[1];
+        return onTimerThread(() -> {
+            switch (action) {
+                case "start":
+                    if (body.has("taskId")) {
+                        timerTaskId = requireTask(dataManager.getTask(body.getString("taskId"))).getId();
+                    }
+                    timerService.start();
+                    break;
+                case "pause":
+                    timerService.pause();
+                    break;
+                case "reset":
+                    timerService.reset();
+                    break;
+                case "break":
+                    timerService.switchToBreak();
+                    break;
+                case "work":
+                    timerService.switchToWork();
+                    break;
+                case "config":
+                    timerService.setSessionConfiguration(parseSessionConfiguration(body));
+                    break;
+                default:
+                    throw new ApiException(404, "Unknown timer action: " + action);
+            }
+            return timerState();
+        });
+    }
+
+    /**
+     * Saved configuration of the requested session type (the current one by
+     * default) with the given fields changed
+     */
+    private SessionConfiguration parseSessionConfiguration(JSONObject body) {
+        SessionType sessionType = body.has("sessionType")
+                ? SessionType.valueOf(body.getString("sessionType"))
+                : timerService.getCurrentSessionType();
+        SessionConfiguration configuration = dataManager.getSettings().getSessionConfiguration(sessionType);
+        if (body.has("workMinutes")) {
+            configuration.setWorkDurationMinutes(body.getInt("workMinutes"));
+        }
+        if (body.has("breakMinutes")) {
+            configuration.setBreakDurationMinutes(body.getInt("breakMinutes"));
+        }
+        if (body.has("autoStartBreaks")) {
+            configuration.setAutoStartBreaks(body.getBoolean("autoStartBreaks"));
+        }
+        if (body.has("autoStartWork")) {
+            configuration.setAutoStartWork(body.getBoolean("autoStartWork"));
+        }
+        return configuration;
+    }
+
+    private JSONObject timerState() {
+        JSONObject state = new JSONObject();
+        state.put("running", timerService.isRunningProperty().get());
+        state.put("break", timerService.isBreakProperty().get());
+        state.put("remainingSeconds", timerService.remainingSecondsProperty().get());
+        state.put("sessionType", timerService.getCurrentSessionType().toString());
+        state.put("workMinutes", timerService.getWorkDurationMinutes());
+        state.put("breakMinutes", timerService.getBreakDurationMinutes());
+        state.put("taskId", timerTaskId == null ? JSONObject.NULL : timerTaskId);
+        return state;
+    }
+
+    /**
+     * Same bookkeeping as the desktop timer: a finished work session is logged
+     * and credited to the task, then the timer switches between work and break
+     */
+    private void completeTimerSession() {
+        if (timerService.isBreakProperty().get()) {
+            timerService.switchToWork();
+            return;
+        }
+        int minutes = timerService.getWorkDurationMinutes();
+        if (timerTaskId != null) {
+            dataManager.modifyTask(timerTaskId, task -> task.addTimeSpent(minutes));
+        }
+        dataManager.addStudySession(new StudySession(minutes, "Pomodoro Session"));
+        timerService.switchToBreak();
+    }
+
+    private <T> T onTimerThread(Callable<T> action) {
+        Future<T> result = timerEvents.submit(action);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(503, "Interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // ==================== STATS ====================
+
+    private JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        stats.put("minutesToday", dataManager.getTotalStudyTimeToday());
+        stats.put("minutesThisWeek", dataManager.getTotalStudyTimeThisWeek());
+
+        List<Task> tasks = dataManager.getTasks();
+        long completed = tasks.stream().filter(Task::isCompleted).count();
+        stats.put("tasks", tasks.size());
+        stats.put("completedTasks", completed);
+
+        SessionStatistics statistics = dataManager.getStatistics();
+        stats.put("sessionCount", statistics.getSessionCount());
+        stats.put("sessionMinutes", quantilesToJson(statistics.getDurationSketch()));
+        stats.put("estimateRatio", quantilesToJson(statistics.getEstimateSketch()));
+
+        AnalyticsReport analytics = dataManager.getAnalytics();
+        stats.put("currentStreakDays", analytics.getCurrentStreakDays());
+        stats.put("longestStreakDays", analytics.getLongestStreakDays());
+        return stats;
+    }
+
+    private static JSONObject quantilesToJson(QuantileSketch sketch) {
+        JSONObject json = new JSONObject();
+        if (!sketch.isEmpty()) {
+            json.put("p50", sketch.getP50());
+            json.put("p90", sketch.getP90());
+            json.put("p99", sketch.getP99());
+        }
+        return json;
+    }
+
+    // ==================== HTTP HELPERS ====================
+
+    private static void requireMethod(String method, String expected) {
+        if (!expected.equals(method)) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    private static JSONObject readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return body.isBlank() ? new JSONObject() : new JSONObject(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JSONObject error = new JSONObject();
+        error.put("error", message == null ? "" : message);
+        send(exchange, status, error.toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Stop the timer thread
+     */
+    public void close() {
+        onTimerThread(() -> {
+            timerService.pause();
+            return null;
+        });
+        timerEvents.shutdown();
+    }
+}
@@ -9,11 +9,9 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import models.SessionType;
-import models.StudySession;
 import services.DataManager;
 
 import java.time.LocalDate;
-import java.util.List;
 
 public class CalloutSelectionController {
     private Dialog<SessionType> dialog;
@@ -184,13 +182,7 @@ public class CalloutSelectionController {
     }
 
     private int getTodayMinutesForSessionType(SessionType sessionType, DataManager dataManager) {
-        LocalDate today = LocalDate.now();
-        List<StudySession> todaySessions = dataManager.getStudySessionsForDate(today);
-
-        return todaySessions.stream()
-                .filter(session -> session.getSessionType() == sessionType)
-                .mapToInt(StudySession::getDurationMinutes)
-                .sum();
+        return dataManager.getStudyTimeForDate(LocalDate.now(), sessionType);
     }
 
     private String getSessionTypeColor(SessionType sessionType) {
@@ -1,29 +1,43 @@
 package controllers;
 
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.effect.Glow;
-import javafx.scene.input.MouseEvent;
 import javafx.animation.ScaleTransition;
 import javafx.animation.FadeTransition;
 import javafx.animation.ParallelTransition;
-import javafx.animation.Timeline;
 import javafx.util.Duration;
-import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import models.Task;
 import models.StudySession;
+import models.TaskSortOrder;
+import services.DataBatch;
 import services.DataManager;
+import services.SettingsStore;
 import services.TimerService;
-import org.json.JSONObject;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class MainController {
+    private static final PseudoClass DARK = PseudoClass.getPseudoClass("dark");
+    // Task cell states, styled in styles.css
+    private static final PseudoClass COMPLETED = PseudoClass.getPseudoClass("completed");
+    private static final PseudoClass ACTIVE = PseudoClass.getPseudoClass("active");
+    private static final PseudoClass IN_PROGRESS = PseudoClass.getPseudoClass("in-progress");
+    private static final PseudoClass ESTIMATED = PseudoClass.getPseudoClass("estimated");
+    private static final PseudoClass OVER_ESTIMATE = PseudoClass.getPseudoClass("over-estimate");
+
     private final DataManager dataManager;
     private final TimerService timerService;
+    private final SettingsStore settings;
+    private final AnimationManager animationManager;
 
     private VBox mainView;
     private VBox timerSection;
@@ -42,6 +56,10 @@ public class MainController {
     private Button addTaskButton;
     private ComboBox<String> filterComboBox;
     private ComboBox<String> sortComboBox;
+    private TextField searchField;
+    private Label searchResultsLabel;
+    private Button completeSelectedButton;
+    private Button deleteSelectedButton;
 
     private Label statsLabel;
     private Label currentTaskLabel; // NEW: Shows which task is currently active
@@ -50,10 +68,21 @@ public class MainController {
     private Task activeTask = null; // NEW: Currently focused task
     private boolean isDarkMode = false; // NEW: Theme state
 
+    // Background mode: window hidden, UI updates are deferred until restore
+    private boolean backgroundMode = false;
+    private boolean uiRefreshPending = false;
+    private boolean completionCheckPending = false;
+    private final List<String> pendingAlerts = new ArrayList<>();
+
     public MainController(DataManager dataManager) {
         this.dataManager = dataManager;
-        this.timerService = new TimerService();
-        loadThemePreference(); // NEW: Load theme preference
+        this.settings = dataManager.getSettings();
+        this.timerService = new TimerService(settings);
+        this.animationManager = new AnimationManager();
+        if (settings.isReducedMotion()) {
+            animationManager.setReducedMotion(true);
+        }
+        this.isDarkMode = settings.isDarkMode();
         setupTimerService();
         createView();
         updateStats();
@@ -65,12 +94,15 @@ public class MainController {
                 // Add time to active task
                 if (activeTask != null) {
                     activeTask.addTimeSpent(timerService.getWorkDurationMinutes());
-
-                    // Check if task should be marked as completed
-                    checkTaskCompletion();
-
-                    // Update task list display
-                    taskListView.refresh();
+                    dataManager.updateTask(activeTask);
+
+                    if (backgroundMode) {
+                        // Ask about completion once the window is back
+                        completionCheckPending = true;
+                    } else {
+                        // Check if task should be marked as completed
+                        checkTaskCompletion();
+                    }
                 }
 
                 StudySession session = new StudySession(
@@ -79,10 +111,10 @@ public class MainController {
                 );
                 dataManager.addStudySession(session);
                 timerService.switchToBreak();
-                showAlert("Work session complete! Time for a break.");
+                notifyUser("Work session complete! Time for a break.");
             } else {
                 timerService.switchToWork();
-                showAlert("Break complete! Ready for another work session?");
+                notifyUser("Break complete! Ready for another work session?");
             }
             updateStats();
         });
@@ -168,19 +200,43 @@ public class MainController {
         // Filter dropdown
         filterComboBox = new ComboBox<>();
         filterComboBox.getItems().addAll("All Tasks", "Active", "Completed");
-        filterComboBox.setValue("All Tasks");
+        String savedFilter = settings.getTaskFilter();
+        filterComboBox.setValue(filterComboBox.getItems().contains(savedFilter) ? savedFilter : "All Tasks");
         filterComboBox.getStyleClass().add("filter-combo");
-        filterComboBox.setOnAction(e -> applyFiltersAndSort());
+        filterComboBox.setOnAction(e -> {
+            settings.setTaskFilter(filterComboBox.getValue());
+            applyFiltersAndSort();
+        });
 
         // Sort dropdown
         sortComboBox = new ComboBox<>();
-        sortComboBox.getItems().addAll("Newest First", "Oldest First", "Name A-Z", "Name Z-A", "Time Spent", "Progress");
-        sortComboBox.setValue("Newest First");
+        for (TaskSortOrder order : TaskSortOrder.values()) {
+            sortComboBox.getItems().add(order.getDisplayName());
+        }
+        String savedSort = settings.getTaskSort();
+        sortComboBox.setValue(sortComboBox.getItems().contains(savedSort) ? savedSort : TaskSortOrder.NEWEST_FIRST.getDisplayName());
         sortComboBox.getStyleClass().add("sort-combo");
-        sortComboBox.setOnAction(e -> applyFiltersAndSort());
+        sortComboBox.setOnAction(e -> {
+            settings.setTaskSort(sortComboBox.getValue());
+            applyFiltersAndSort();
+        });
 
         headerBox.getChildren().addAll(tasksTitle, filterComboBox, sortComboBox);
 
+        // Search box (tasks and session history)
+        searchField = new TextField();
+        searchField.setPromptText("Search tasks and sessions...");
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> applyFiltersAndSort());
+
+        searchResultsLabel = new Label();
+        searchResultsLabel.getStyleClass().add("task-stats-label");
+        searchResultsLabel.setVisible(false);
+        searchResultsLabel.setManaged(false);
+
+        HBox searchBox = new HBox(10, searchField, searchResultsLabel);
+        searchBox.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(searchField, Priority.ALWAYS);
+
         // Enhanced add task box with time estimation
         VBox addTaskContainer = new VBox(8);
         addTaskContainer.getStyleClass().add("add-task-container");
@@ -212,6 +268,22 @@ public class MainController {
         taskListView = new ListView<>();
         taskListView.setPrefHeight(300);
         taskListView.setCellFactory(param -> new EnhancedTaskListCell());
+        taskListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
+        // Bulk actions on the selected tasks (Ctrl/Shift-click to select several)
+        completeSelectedButton = new Button("Complete Selected");
+        completeSelectedButton.getStyleClass().add("add-button");
+        completeSelectedButton.setOnAction(e -> completeSelectedTasks());
+
+        deleteSelectedButton = new Button("Delete Selected");
+        deleteSelectedButton.getStyleClass().add("delete-button");
+        deleteSelectedButton.setOnAction(e -> deleteSelectedTasks());
+
+        HBox bulkActionsBox = new HBox(10, completeSelectedButton, deleteSelectedButton);
+        bulkActionsBox.setAlignment(Pos.CENTER_LEFT);
+        updateBulkActions();
+        taskListView.getSelectionModel().getSelectedItems().addListener(
+                (javafx.collections.ListChangeListener<Task>) change -> updateBulkActions());
 
         // Double-click to edit
         taskListView.setOnMouseClicked(e -> {
@@ -225,7 +297,86 @@ public class MainController {
 
         loadTasks();
 
-        tasksSection.getChildren().addAll(headerBox, addTaskContainer, taskListView);
+        tasksSection.getChildren().addAll(headerBox, searchBox, addTaskContainer, taskListView, bulkActionsBox);
+    }
+
+    private void updateBulkActions() {
+        int selected = taskListView.getSelectionModel().getSelectedItems().size();
+        completeSelectedButton.setDisable(selected == 0);
+        deleteSelectedButton.setDisable(selected == 0);
+        completeSelectedButton.setText(selected > 1 ? "Complete " + selected : "Complete Selected");
+        deleteSelectedButton.setText(selected > 1 ? "Delete " + selected : "Delete Selected");
+    }
+
+    /**
+     * Mark every selected task complete, saved in one batch
+     */
+    private void completeSelectedTasks() {
+        List<Task> completed = new ArrayList<>();
+        DataBatch batch = dataManager.batch();
+        for (Task task : List.copyOf(taskListView.getSelectionModel().getSelectedItems())) {
+            if (!task.isCompleted()) {
+                task.setCompleted(true);
+                completed.add(task);
+                batch.updateTask(task);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            batch.apply();
+        } catch (RuntimeException e) {
+            // Nothing was saved; put the tasks back the way they were
+            for (Task task : completed) {
+                task.setCompleted(false);
+            }
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Complete Tasks");
+            alert.setHeaderText("The selected tasks could not be completed.");
+            alert.setContentText(e.getMessage());
+            alert.showAndWait();
+            return;
+        }
+        if (completed.contains(activeTask)) {
+            // A completed task no longer collects timer sessions
+            activeTask.setActive(false);
+            activeTask = null;
+            currentTaskLabel.setText("No task selected");
+            currentTaskLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #666666;");
+        }
+        loadTasks();
+        updateTaskStats();
+        updateStats();
+    }
+
+    /**
+     * Delete every selected task, after confirmation, in one batch
+     */
+    private void deleteSelectedTasks() {
+        List<Task> selected = List.copyOf(taskListView.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) {
+            return;
+        }
+        if (selected.size() > 1) {
+            Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+            alert.setTitle("Delete Tasks");
+            alert.setHeaderText(null);
+            alert.setContentText("Delete " + selected.size() + " tasks?");
+            if (alert.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+                return;
+            }
+        }
+
+        DataBatch batch = dataManager.batch();
+        for (Task task : selected) {
+            batch.removeTask(task);
+        }
+        batch.apply();
+        clearActiveTaskIfRemoved();
+        loadTasks();
+        updateTaskStats();
+        updateStats();
     }
 
     private void addTask() {
@@ -257,7 +408,8 @@ public class MainController {
     }
 
     private void applyFiltersAndSort() {
-        List<Task> tasks = new java.util.ArrayList<>(dataManager.getTasks());
+        // Tasks come pre-sorted from the data manager's sort index
+        List<Task> tasks = dataManager.getTasksSorted(TaskSortOrder.fromDisplayName(sortComboBox.getValue()));
 
         // Apply filter
         String filter = filterComboBox.getValue();
@@ -272,29 +424,19 @@ public class MainController {
             }
         }
 
-        // Apply sort
-        String sort = sortComboBox.getValue();
-        if (sort != null) {
-            switch (sort) {
-                case "Newest First":
-                    tasks.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
-                    break;
-                case "Oldest First":
-                    tasks.sort((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()));
-                    break;
-                case "Name A-Z":
-                    tasks.sort((a, b) -> a.getTitle().compareToIgnoreCase(b.getTitle()));
-                    break;
-                case "Name Z-A":
-                    tasks.sort((a, b) -> b.getTitle().compareToIgnoreCase(a.getTitle()));
-                    break;
-                case "Time Spent":
-                    tasks.sort((a, b) -> Integer.compare(b.getTotalTimeSpent(), a.getTotalTimeSpent()));
-                    break;
-                case "Progress":
-                    tasks.sort((a, b) -> Double.compare(b.getProgressPercentage(), a.getProgressPercentage()));
-                    break;
-            }
+        // Apply search
+        String query = searchField.getText() == null ? "" : searchField.getText().trim();
+        if (query.isEmpty()) {
+            searchResultsLabel.setVisible(false);
+            searchResultsLabel.setManaged(false);
+        } else {
+            java.util.Set<Task> matches = new java.util.HashSet<>(dataManager.searchTasks(query));
+            tasks.removeIf(task -> !matches.contains(task));
+
+            int sessionMatches = dataManager.countSessionMatches(query);
+            searchResultsLabel.setText(String.format("%d tasks | %d sessions", tasks.size(), sessionMatches));
+            searchResultsLabel.setVisible(true);
+            searchResultsLabel.setManaged(true);
         }
 
         taskListView.getItems().setAll(tasks);
@@ -368,7 +510,6 @@ public class MainController {
                     dataManager.updateTask(task);
                     loadTasks();
                     updateTaskStats();
-                    taskListView.refresh();
                 }
             } else if (dialogButton == deleteButtonType) {
                 // Confirm deletion
@@ -393,13 +534,18 @@ public class MainController {
         if (isDarkMode) {
             dialog.getDialogPane().getScene().getStylesheets().add(
                     getClass().getResource("/css/styles.css").toExternalForm());
-            dialog.getDialogPane().getStyleClass().add("dark");
+            dialog.getDialogPane().getScene().getRoot().pseudoClassStateChanged(DARK, true);
         }
 
         dialog.showAndWait();
     }
 
     private void updateStats() {
+        if (backgroundMode) {
+            uiRefreshPending = true;
+            return;
+        }
+
         int totalMinutesToday = dataManager.getTotalStudyTimeToday();
         int completedTasksCount = (int) dataManager.getTasks().stream()
                 .filter(Task::isCompleted)
@@ -432,9 +578,6 @@ public class MainController {
         currentTaskLabel.setText("Working on: " + task.getTitle() + taskTimeInfo);
         currentTaskLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #4CAF50; -fx-font-weight: bold;");
 
-        // Refresh task list to show active indicator
-        taskListView.refresh();
-
         // Show subtle notification
         System.out.println("Focus set to: " + task.getTitle());
     }
@@ -459,16 +602,24 @@ public class MainController {
                 if (response == yesButton) {
                     activeTask.setCompleted(true);
                     activeTask.setActive(false);
+                    dataManager.updateTask(activeTask);
                     activeTask = null;
                     currentTaskLabel.setText("No task selected");
                     currentTaskLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #666666;");
-                    taskListView.refresh();
                     updateStats();
                 }
             });
         }
     }
 
+    private void notifyUser(String message) {
+        if (backgroundMode) {
+            pendingAlerts.add(message);
+        } else {
+            showAlert(message);
+        }
+    }
+
     private void showAlert(String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("Session Complete");
@@ -481,105 +632,83 @@ public class MainController {
         return mainView;
     }
 
-    // ==================== THEME MANAGEMENT ====================
+    /**
+     * Show tasks and sessions that another instance changed in the shared data directory
+     */
+    public void refreshAfterExternalChange() {
+        clearActiveTaskIfRemoved();
+        loadTasks();
+        updateTaskStats();
+        updateStats();
+    }
 
-    private void toggleTheme() {
-        isDarkMode = !isDarkMode;
-        applyTheme();
-        saveThemePreference();
+    private void clearActiveTaskIfRemoved() {
+        if (activeTask != null && !dataManager.getTasks().contains(activeTask)) {
+            activeTask = null;
+            currentTaskLabel.setText("No task selected");
+            currentTaskLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #666666;");
+        }
     }
 
-    private void applyTheme() {
-        // Only apply theme if the scene is available
-        if (mainView.getScene() != null) {
-            mainView.getScene().getStylesheets().clear();
-            mainView.getScene().getStylesheets().add(getClass().getResource("/css/styles.css").toExternalForm());
+    /**
+     * Called by the application when the stage is minimized/hidden or restored.
+     * In background mode the timer only wakes up on deadlines, animations are
+     * paused and UI updates are skipped; restoring catches up with one refresh.
+     */
+    public void setBackgroundMode(boolean backgroundMode) {
+        if (this.backgroundMode == backgroundMode) {
+            return;
         }
+        this.backgroundMode = backgroundMode;
+        timerService.setBackgroundMode(backgroundMode);
 
-        if (isDarkMode) {
-            // Add dark theme classes to all components
-            mainView.getStyleClass().add("dark");
-            timerSection.getStyleClass().add("dark");
-            tasksSection.getStyleClass().add("dark");
-            timeLabel.getStyleClass().add("dark");
-            sessionTypeLabel.getStyleClass().add("dark");
-            statsLabel.getStyleClass().add("dark");
-            currentTaskLabel.getStyleClass().add("dark");
-            startButton.getStyleClass().add("dark");
-            pauseButton.getStyleClass().add("dark");
-            resetButton.getStyleClass().add("dark");
-            addTaskButton.getStyleClass().add("dark");
-            taskTitleField.getStyleClass().add("dark");
-            if (estimatedTimeField != null) estimatedTimeField.getStyleClass().add("dark");
-            if (filterComboBox != null) filterComboBox.getStyleClass().add("dark");
-            if (sortComboBox != null) sortComboBox.getStyleClass().add("dark");
-            if (taskStatsLabel != null) taskStatsLabel.getStyleClass().add("dark");
-            taskListView.getStyleClass().add("dark");
-            if (themeToggleButton != null) {
-                themeToggleButton.getStyleClass().add("dark");
-                themeToggleButton.setText("☀️");
-            }
+        if (backgroundMode) {
+            animationManager.pauseAll();
+            return;
+        }
 
-            // Update task list cells
-            if (taskListView != null) {
-                taskListView.refresh();
-            }
-        } else {
-            // Remove dark theme classes
-            mainView.getStyleClass().remove("dark");
-            timerSection.getStyleClass().remove("dark");
-            tasksSection.getStyleClass().remove("dark");
-            timeLabel.getStyleClass().remove("dark");
-            sessionTypeLabel.getStyleClass().remove("dark");
-            statsLabel.getStyleClass().remove("dark");
-            currentTaskLabel.getStyleClass().remove("dark");
-            startButton.getStyleClass().remove("dark");
-            pauseButton.getStyleClass().remove("dark");
-            resetButton.getStyleClass().remove("dark");
-            addTaskButton.getStyleClass().remove("dark");
-            taskTitleField.getStyleClass().remove("dark");
-            if (estimatedTimeField != null) estimatedTimeField.getStyleClass().remove("dark");
-            if (filterComboBox != null) filterComboBox.getStyleClass().remove("dark");
-            if (sortComboBox != null) sortComboBox.getStyleClass().remove("dark");
-            if (taskStatsLabel != null) taskStatsLabel.getStyleClass().remove("dark");
-            taskListView.getStyleClass().remove("dark");
-            if (themeToggleButton != null) {
-                themeToggleButton.getStyleClass().remove("dark");
-                themeToggleButton.setText("🌙");
-            }
+        animationManager.resumeAll();
 
-            // Update task list cells
-            if (taskListView != null) {
-                taskListView.refresh();
-            }
+        if (uiRefreshPending) {
+            uiRefreshPending = false;
+            updateStats();
+            updateTaskStats();
         }
-    }
 
-    private void loadThemePreference() {
-        try {
-            java.nio.file.Path themeFile = java.nio.file.Paths.get("data", "theme.json");
-            if (java.nio.file.Files.exists(themeFile)) {
-                String content = new String(java.nio.file.Files.readAllBytes(themeFile));
-                JSONObject themeData = new JSONObject(content);
-                isDarkMode = themeData.optBoolean("darkMode", false);
-            }
-        } catch (Exception e) {
-            System.err.println("Could not load theme preference: " + e.getMessage());
-            isDarkMode = false;
+        if (completionCheckPending) {
+            completionCheckPending = false;
+            Platform.runLater(this::checkTaskCompletion);
+        }
+
+        for (String message : pendingAlerts) {
+            Platform.runLater(() -> showAlert(message));
         }
+        pendingAlerts.clear();
     }
 
-    private void saveThemePreference() {
-        try {
-            java.nio.file.Files.createDirectories(java.nio.file.Paths.get("data"));
+    public void setReducedMotion(boolean reducedMotion) {
+        animationManager.setReducedMotion(reducedMotion);
+        settings.setReducedMotion(reducedMotion);
+        taskListView.refresh();
+    }
 
-            JSONObject themeData = new JSONObject();
-            themeData.put("darkMode", isDarkMode);
+    // ==================== THEME MANAGEMENT ====================
 
-            java.nio.file.Path themeFile = java.nio.file.Paths.get("data", "theme.json");
-            java.nio.file.Files.write(themeFile, themeData.toString(2).getBytes());
-        } catch (Exception e) {
-            System.err.println("Could not save theme preference: " + e.getMessage());
+    private void toggleTheme() {
+        isDarkMode = !isDarkMode;
+        applyTheme();
+        settings.setDarkMode(isDarkMode);
+    }
+
+    /**
+     * Switch theme with a single pseudo-class change on the scene root: every dark
+     * rule in styles.css is scoped under .root:dark, so one CSS pass restyles the
+     * whole view (cells included) without touching individual nodes
+     */
+    private void applyTheme() {
+        mainView.pseudoClassStateChanged(DARK, isDarkMode);
+        if (themeToggleButton != null) {
+            themeToggleButton.setText(isDarkMode ? "☀️" : "🌙");
         }
     }
 
@@ -591,21 +720,29 @@ public class MainController {
         private VBox rightContent;
         private Label timeLabel; // NEW: Shows time spent
         private Circle activeIndicator; // NEW: Shows if task is active
+        // Time label text is only formatted again when these change
+        private int shownTimeSpent = -1;
+        private int shownEstimate = -1;
+
+        // The task shown is observed, so a change to it re-renders exactly this cell.
+        // Tasks only hold the listener weakly: a cell the list discards is not kept alive.
+        private Task boundTask;
+        private final InvalidationListener taskListener = obs -> render();
+        private final WeakInvalidationListener weakTaskListener = new WeakInvalidationListener(taskListener);
 
         public EnhancedTaskListCell() {
             super();
             checkBox = new CheckBox();
             titleLabel = new Label();
+            titleLabel.getStyleClass().add("task-title");
             deleteButton = new Button("Delete");
             deleteButton.getStyleClass().add("delete-button");
 
             // NEW: Initialize time tracking components
             timeLabel = new Label();
-            timeLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #666666;");
+            timeLabel.getStyleClass().add("task-time");
             activeIndicator = new Circle(4);
-            activeIndicator.setFill(Color.TRANSPARENT);
-            activeIndicator.setStroke(Color.web("#4CAF50"));
-            activeIndicator.setStrokeWidth(2);
+            activeIndicator.getStyleClass().add("active-indicator");
 
             // Create right side content (time label + delete button)
             rightContent = new VBox(2, timeLabel, deleteButton);
@@ -638,10 +775,6 @@ public class MainController {
                 }
             });
 
-            // Add hover effect to the entire row
-            content.setOnMouseEntered(this::onHoverEnter);
-            content.setOnMouseExited(this::onHoverExit);
-
             // NEW: Click to focus on task
             content.setOnMouseClicked(e -> {
                 if (e.getClickCount() == 1) {
@@ -663,9 +796,17 @@ public class MainController {
                     });
                 }
             });
+
+            // Stop the pulse as soon as the cell is hidden by the virtual flow or detached
+            visibleProperty().addListener((obs, oldVal, newVal) -> refreshPulse());
+            sceneProperty().addListener((obs, oldVal, newVal) -> refreshPulse());
         }
 
         private void playCompletionAnimation() {
+            if (!animationManager.isMotionAllowed()) {
+                return;
+            }
+
             // Scale animation for checkbox
             ScaleTransition scaleTransition = new ScaleTransition(Duration.millis(200), checkBox);
             scaleTransition.setFromX(1.0);
@@ -692,6 +833,11 @@ public class MainController {
         }
 
         private void playDeleteAnimation(Runnable onComplete) {
+            if (!animationManager.isMotionAllowed()) {
+                onComplete.run();
+                return;
+            }
+
             FadeTransition fadeOut = new FadeTransition(Duration.millis(300), content);
             fadeOut.setFromValue(1.0);
             fadeOut.setToValue(0.0);
@@ -707,105 +853,94 @@ public class MainController {
             deleteTransition.play();
         }
 
-        private void onHoverEnter(MouseEvent e) {
-            Task task = getItem();
-            if (task != null && !task.isCompleted()) {
-                content.setStyle("-fx-background-color: #f0f8ff; -fx-background-radius: 4;");
-                deleteButton.setVisible(true);
-            }
-        }
-
-        private void onHoverExit(MouseEvent e) {
-            content.setStyle("-fx-background-color: transparent;");
-            Task task = getItem();
-            if (task != null && !task.isCompleted()) {
-                deleteButton.setVisible(false);
-            }
-        }
-
         @Override
         protected void updateItem(Task task, boolean empty) {
             super.updateItem(task, empty);
+            bind(empty ? null : task);
 
             if (empty || task == null) {
+                animationManager.stopPulse(activeIndicator);
                 setGraphic(null);
             } else {
+                render();
+                setGraphic(content);
+            }
+        }
+
+        /**
+         * Move the listener from the previously shown task to {@code task} (cells are reused)
+         */
+        private void bind(Task task) {
+            if (task == boundTask) {
+                return;
+            }
+            // The pulse belonged to the previous task; render() starts it again if needed
+            animationManager.stopPulse(activeIndicator);
+            if (boundTask != null) {
+                boundTask.titleProperty().removeListener(weakTaskListener);
+                boundTask.completedProperty().removeListener(weakTaskListener);
+                boundTask.activeProperty().removeListener(weakTaskListener);
+                boundTask.totalTimeSpentProperty().removeListener(weakTaskListener);
+                boundTask.estimatedTimeProperty().removeListener(weakTaskListener);
+            }
+            boundTask = task;
+            if (task != null) {
+                task.titleProperty().addListener(weakTaskListener);
+                task.completedProperty().addListener(weakTaskListener);
+                task.activeProperty().addListener(weakTaskListener);
+                task.totalTimeSpentProperty().addListener(weakTaskListener);
+                task.estimatedTimeProperty().addListener(weakTaskListener);
+            }
+        }
+
+        /**
+         * Show the current state of the bound task; reading it also re-arms the invalidation listeners
+         */
+        private void render() {
+            Task task = boundTask;
+            if (task != null) {
                 checkBox.setSelected(task.isCompleted());
                 titleLabel.setText(task.getTitle());
-                titleLabel.getStyleClass().setAll("task-title");
-
-                // Apply dark theme classes if needed
-                if (isDarkMode) {
-                    titleLabel.getStyleClass().add("dark");
-                    checkBox.getStyleClass().add("dark");
-                    deleteButton.getStyleClass().add("dark");
-                    content.getStyleClass().add("dark");
-                    getStyleClass().add("dark");
-                } else {
-                    titleLabel.getStyleClass().remove("dark");
-                    checkBox.getStyleClass().remove("dark");
-                    deleteButton.getStyleClass().remove("dark");
-                    content.getStyleClass().remove("dark");
-                    getStyleClass().remove("dark");
-                }
 
-                // NEW: Update time label
+                // Colours, opacity and visibility follow from these states in styles.css;
+                // a state that did not change costs nothing
+                content.pseudoClassStateChanged(COMPLETED, task.isCompleted());
+                content.pseudoClassStateChanged(ACTIVE, task.isActive());
                 updateTimeLabel(task);
 
-                // NEW: Update active indicator
-                updateActiveIndicator(task);
-
-                // Enhanced visual feedback for completed tasks
-                if (task.isCompleted()) {
-                    titleLabel.getStyleClass().add("completed");
-                    content.getStyleClass().add("task-completed");
-                    content.setStyle("-fx-opacity: 0.7;");
-                    deleteButton.setVisible(false); // Hide delete for completed tasks
-                    timeLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #999999;");
-                } else {
-                    titleLabel.getStyleClass().remove("completed");
-                    content.getStyleClass().remove("task-completed");
-                    content.setStyle("-fx-opacity: 1.0;");
-                    deleteButton.setVisible(false); // Initially hidden, shown on hover
-                    timeLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #666666;");
-                }
-
-                setGraphic(content);
+                // Pulse animation for active task (at most one per indicator)
+                refreshPulse();
             }
         }
 
         private void updateTimeLabel(Task task) {
-            if (task.getEstimatedTime() > 0) {
-                timeLabel.setText(String.format("%d/%dm", task.getTotalTimeSpent(), task.getEstimatedTime()));
-                // Change color if over estimate
-                if (task.isOverEstimate()) {
-                    timeLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #FF5722; -fx-font-weight: bold;");
-                } else {
-                    timeLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #4CAF50;");
-                }
-            } else if (task.getTotalTimeSpent() > 0) {
+            int spent = task.getTotalTimeSpent();
+            int estimate = task.getEstimatedTime();
+            content.pseudoClassStateChanged(ESTIMATED, estimate > 0);
+            content.pseudoClassStateChanged(OVER_ESTIMATE, estimate > 0 && task.isOverEstimate());
+            content.pseudoClassStateChanged(IN_PROGRESS, estimate <= 0 && spent > 0);
+
+            if (spent == shownTimeSpent && estimate == shownEstimate) {
+                return;
+            }
+            shownTimeSpent = spent;
+            shownEstimate = estimate;
+            if (estimate > 0) {
+                timeLabel.setText(spent + "/" + estimate + "m");
+            } else if (spent > 0) {
                 timeLabel.setText(task.getTimeSpentFormatted());
-                timeLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #2196F3;");
             } else {
                 timeLabel.setText("");
             }
         }
 
-        private void updateActiveIndicator(Task task) {
-            if (task.isActive()) {
-                activeIndicator.setFill(Color.web("#4CAF50"));
-                activeIndicator.setVisible(true);
-
-                // Add pulse animation for active task
-                FadeTransition pulse = new FadeTransition(Duration.seconds(1), activeIndicator);
-                pulse.setFromValue(0.3);
-                pulse.setToValue(1.0);
-                pulse.setCycleCount(Timeline.INDEFINITE);
-                pulse.setAutoReverse(true);
-                pulse.play();
+        private void refreshPulse() {
+            Task task = getItem();
+            boolean onScreen = !isEmpty() && isVisible() && getScene() != null;
+            if (onScreen && task != null && task.isActive()) {
+                animationManager.startPulse(activeIndicator);
             } else {
-                activeIndicator.setFill(Color.TRANSPARENT);
-                activeIndicator.setVisible(false);
+                animationManager.stopPulse(activeIndicator);
             }
         }
     }
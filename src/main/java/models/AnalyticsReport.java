@@ -0,0 +1,82 @@
+package models;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Result of a full-history analytics run over all study sessions
+ */
+public class AnalyticsReport {
+    private final long totalMinutes;
+    private final int sessionCount;
+    private final int currentStreakDays;
+    private final int longestStreakDays;
+    private final long[][] heatmap; // [weekday Monday=0][hour 0-23] -> minutes
+    private final Map<String, SortedMap<YearMonth, Long>> minutesByProject;
+    private final Map<SessionType, SortedMap<YearMonth, Long>> minutesBySessionType;
+
+    public AnalyticsReport(long totalMinutes, int sessionCount, int currentStreakDays, int longestStreakDays,
+                           long[][] heatmap,
+                           Map<String, SortedMap<YearMonth, Long>> minutesByProject,
+                           Map<SessionType, SortedMap<YearMonth, Long>> minutesBySessionType) {
+        this.totalMinutes = totalMinutes;
+        this.sessionCount = sessionCount;
+        this.currentStreakDays = currentStreakDays;
+        this.longestStreakDays = longestStreakDays;
+        this.heatmap = heatmap;
+        this.minutesByProject = minutesByProject;
+        this.minutesBySessionType = minutesBySessionType;
+    }
+
+    public long getTotalMinutes() {
+        return totalMinutes;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public double getAverageSessionMinutes() {
+        return sessionCount == 0 ? 0.0 : (double) totalMinutes / sessionCount;
+    }
+
+    /**
+     * Consecutive days with at least one session, ending today (or yesterday
+     * if nothing has been logged yet today)
+     */
+    public int getCurrentStreakDays() {
+        return currentStreakDays;
+    }
+
+    public int getLongestStreakDays() {
+        return longestStreakDays;
+    }
+
+    /**
+     * Minutes studied per weekday (Monday = 0) and hour of day
+     */
+    public long[][] getHeatmap() {
+        return heatmap;
+    }
+
+    /**
+     * Monthly minutes per project name ("" for sessions without a project)
+     */
+    public Map<String, SortedMap<YearMonth, Long>> getMinutesByProject() {
+        return minutesByProject;
+    }
+
+    /**
+     * Monthly minutes per session type
+     */
+    public Map<SessionType, SortedMap<YearMonth, Long>> getMinutesBySessionType() {
+        return minutesBySessionType;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d sessions, %d min total (avg %.1f min), streak %d days (longest %d)",
+            sessionCount, totalMinutes, getAverageSessionMinutes(), currentStreakDays, longestStreakDays);
+    }
+}
@@ -14,7 +14,7 @@ public class StudySession {
     private String projectName; // NEW: Project or category name
 
     public StudySession() {
-        this.id = java.util.UUID.randomUUID().toString();
+        this.id = TimeOrderedId.next();
         this.startTime = LocalDateTime.now();
         this.sessionType = SessionType.WORK; // Default to WORK
     }
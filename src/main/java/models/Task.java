@@ -6,25 +6,30 @@ import java.time.LocalDateTime;
 
 public class Task {
     private String id;
-    private String title;
+    private String titleValue;
     private String description;
-    private boolean completed;
+    private boolean completedValue;
     private LocalDateTime createdAt;
     private TaskType taskType;
+    private StringProperty title;
+    private BooleanProperty completed;
 
     // NEW: Time tracking properties
-    private final BooleanProperty active = new SimpleBooleanProperty(false);
-    private final IntegerProperty totalTimeSpent = new SimpleIntegerProperty(0);
-    private final IntegerProperty estimatedTime = new SimpleIntegerProperty(0);
+    // Plain values until a property is requested (by a UI binding); most tasks never need one
+    private boolean activeValue;
+    private int totalTimeSpentValue;
+    private int estimatedTimeValue;
+    private BooleanProperty active;
+    private IntegerProperty totalTimeSpent;
+    private IntegerProperty estimatedTime;
 
     public Task() {
         this(TaskType.WORK);
     }
 
     public Task(TaskType taskType) {
-        this.id = java.util.UUID.randomUUID().toString();
+        this.id = TimeOrderedId.next();
         this.createdAt = LocalDateTime.now();
-        this.completed = false;
         this.taskType = taskType;
     }
 
@@ -42,9 +47,9 @@ public class Task {
 
     public Task(String title, String description, int estimatedMinutes, TaskType taskType) {
         this(taskType);
-        this.title = title;
+        this.titleValue = title;
         this.description = description;
-        this.estimatedTime.set(estimatedMinutes);
+        this.estimatedTimeValue = estimatedMinutes;
     }
 
     public String getId() {
@@ -52,11 +57,22 @@ public class Task {
     }
 
     public String getTitle() {
+        return title != null ? title.get() : titleValue;
+    }
+
+    public StringProperty titleProperty() {
+        if (title == null) {
+            title = new SimpleStringProperty(this, "title", titleValue);
+        }
         return title;
     }
 
     public void setTitle(String title) {
-        this.title = title;
+        if (this.title != null) {
+            this.title.set(title);
+        } else {
+            titleValue = title;
+        }
     }
 
     public String getDescription() {
@@ -68,11 +84,22 @@ public class Task {
     }
 
     public boolean isCompleted() {
+        return completed != null ? completed.get() : completedValue;
+    }
+
+    public BooleanProperty completedProperty() {
+        if (completed == null) {
+            completed = new SimpleBooleanProperty(this, "completed", completedValue);
+        }
         return completed;
     }
 
     public void setCompleted(boolean completed) {
-        this.completed = completed;
+        if (this.completed != null) {
+            this.completed.set(completed);
+        } else {
+            completedValue = completed;
+        }
     }
 
     public LocalDateTime getCreatedAt() {
@@ -87,67 +114,96 @@ public class Task {
         this.createdAt = createdAt;
     }
 
+    public TaskType getTaskType() {
+        return taskType;
+    }
+
+    public void setTaskType(TaskType taskType) {
+        this.taskType = taskType;
+    }
+
     public void toggleCompleted() {
-        this.completed = !this.completed;
+        setCompleted(!isCompleted());
     }
 
     // NEW: Time tracking methods
     public boolean isActive() {
-        return active.get();
+        return active != null ? active.get() : activeValue;
     }
 
     public BooleanProperty activeProperty() {
+        if (active == null) {
+            active = new SimpleBooleanProperty(this, "active", activeValue);
+        }
         return active;
     }
 
     public void setActive(boolean active) {
-        this.active.set(active);
+        if (this.active != null) {
+            this.active.set(active);
+        } else {
+            activeValue = active;
+        }
     }
 
     public int getTotalTimeSpent() {
-        return totalTimeSpent.get();
+        return totalTimeSpent != null ? totalTimeSpent.get() : totalTimeSpentValue;
     }
 
     public IntegerProperty totalTimeSpentProperty() {
+        if (totalTimeSpent == null) {
+            totalTimeSpent = new SimpleIntegerProperty(this, "totalTimeSpent", totalTimeSpentValue);
+        }
         return totalTimeSpent;
     }
 
     public void setTotalTimeSpent(int totalTimeSpent) {
-        this.totalTimeSpent.set(totalTimeSpent);
+        if (this.totalTimeSpent != null) {
+            this.totalTimeSpent.set(totalTimeSpent);
+        } else {
+            totalTimeSpentValue = totalTimeSpent;
+        }
     }
 
     public void addTimeSpent(int minutes) {
-        this.totalTimeSpent.set(this.totalTimeSpent.get() + minutes);
+        setTotalTimeSpent(getTotalTimeSpent() + minutes);
     }
 
     public int getEstimatedTime() {
-        return estimatedTime.get();
+        return estimatedTime != null ? estimatedTime.get() : estimatedTimeValue;
     }
 
     public IntegerProperty estimatedTimeProperty() {
+        if (estimatedTime == null) {
+            estimatedTime = new SimpleIntegerProperty(this, "estimatedTime", estimatedTimeValue);
+        }
         return estimatedTime;
     }
 
     public void setEstimatedTime(int estimatedTime) {
-        this.estimatedTime.set(estimatedTime);
+        if (this.estimatedTime != null) {
+            this.estimatedTime.set(estimatedTime);
+        } else {
+            estimatedTimeValue = estimatedTime;
+        }
     }
 
     // Helper methods
     public int getTimeRemaining() {
-        return Math.max(0, estimatedTime.get() - totalTimeSpent.get());
+        return Math.max(0, getEstimatedTime() - getTotalTimeSpent());
     }
 
     public boolean isOverEstimate() {
-        return estimatedTime.get() > 0 && totalTimeSpent.get() > estimatedTime.get();
+        return getEstimatedTime() > 0 && getTotalTimeSpent() > getEstimatedTime();
     }
 
     public double getProgressPercentage() {
-        if (estimatedTime.get() <= 0) return 0.0;
-        return Math.min(1.0, (double) totalTimeSpent.get() / estimatedTime.get());
+        if (getEstimatedTime() <= 0) return 0.0;
+        return Math.min(1.0, (double) getTotalTimeSpent() / getEstimatedTime());
     }
 
     public String getTimeSpentFormatted() {
-        int minutes = totalTimeSpent.get();
+        int minutes = getTotalTimeSpent();
         if (minutes < 60) {
             return minutes + "m";
         } else {
@@ -171,11 +227,11 @@ public class Task {
     @Override
     public String toString() {
         String timeInfo = "";
-        if (estimatedTime.get() > 0) {
-            timeInfo = String.format(" (%d/%dm)", totalTimeSpent.get(), estimatedTime.get());
-        } else if (totalTimeSpent.get() > 0) {
-            timeInfo = String.format(" (%dm)", totalTimeSpent.get());
+        if (getEstimatedTime() > 0) {
+            timeInfo = String.format(" (%d/%dm)", getTotalTimeSpent(), getEstimatedTime());
+        } else if (getTotalTimeSpent() > 0) {
+            timeInfo = String.format(" (%dm)", getTotalTimeSpent());
         }
-        return title + (completed ? " ✓" : "") + timeInfo;
+        return getTitle() + (isCompleted() ? " ✓" : "") + timeInfo;
     }
 }
\ No newline at end of file
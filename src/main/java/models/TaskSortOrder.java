@@ -0,0 +1,34 @@
+package models;
+
+public enum TaskSortOrder {
+    NEWEST_FIRST("Newest First"),
+    OLDEST_FIRST("Oldest First"),
+    NAME_ASC("Name A-Z"),
+    NAME_DESC("Name Z-A"),
+    TIME_SPENT("Time Spent"),
+    PROGRESS("Progress");
+
+    private final String displayName;
+
+    TaskSortOrder(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public static TaskSortOrder fromDisplayName(String displayName) {
+        for (TaskSortOrder order : values()) {
+            if (order.displayName.equals(displayName)) {
+                return order;
+            }
+        }
+        return NEWEST_FIRST;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
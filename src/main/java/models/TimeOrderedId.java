@@ -0,0 +1,39 @@
+package models;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Record ids in the UUIDv7 layout: 48 bits of Unix milliseconds, a 12-bit
+ * sequence within the millisecond, then 62 random bits. Ids created in this
+ * process strictly increase, so new records sort by creation time, as strings
+ * too (fixed-width lowercase hex). Generation is a CAS on one counter plus
+ * ThreadLocalRandom, with no locks and no SecureRandom.
+ *
+ * Older records keep their random v4 ids; ids are only ever compared as strings.
+ */
+public final class TimeOrderedId {
+
+    // Unix millis << 12 | sequence of the last id handed out
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimeOrderedId() {
+    }
+
+    public static String next() {
+        long now = System.currentTimeMillis() << 12;
+        long stamp;
+        long last;
+        do {
+            last = LAST.get();
+            // Past 4096 ids in one millisecond the sequence carries into the time field
+            stamp = Math.max(now, last + 1);
+        } while (!LAST.compareAndSet(last, stamp));
+
+        long mostSignificant = (stamp >>> 12) << 16 | 0x7000L | (stamp & 0xFFFL);
+        long random = ThreadLocalRandom.current().nextLong();
+        long leastSignificant = (random & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant).toString();
+    }
+}
@@ -0,0 +1,207 @@
+package services;
+
+import models.AnalyticsReport;
+import models.SessionType;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Full-history analytics over the session column store.
+ * The row range is split recursively and each fork-join leaf aggregates its
+ * rows into per-day, per-hour and per-month buckets; partial results are then
+ * merged pairwise, so the work scales with the number of cores.
+ */
+public class AnalyticsEngine {
+    private static final int LEAF_ROWS = 16_384;
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+    private static final long MICROS_PER_HOUR = 3_600_000_000L;
+    private static final SessionType[] TYPES = SessionType.values();
+
+    private final ForkJoinPool pool;
+
+    public AnalyticsEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public AnalyticsEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Analyze every session in the store. The store must not be modified while this runs.
+     */
+    public AnalyticsReport analyze(SessionColumnStore store, LocalDate today) {
+        Partial total = store.size() == 0
+                ? new Partial()
+                : pool.invoke(new AnalyzeTask(store, 0, store.size()));
+        return total.toReport(store.getProjectDictionary(), today.toEpochDay());
+    }
+
+    /**
+     * Aggregates for one slice of rows
+     */
+    private static final class Partial {
+        long totalMinutes;
+        int sessionCount;
+        final long[] heatmap = new long[7 * 24];
+        final BitSet days = new BitSet();
+        // (projectId + 1) << 32 | monthIndex -> minutes
+        final Map<Long, long[]> projectMonths = new HashMap<>();
+        // (typeOrdinal + 1) << 32 | monthIndex -> minutes
+        final Map<Long, long[]> typeMonths = new HashMap<>();
+
+        // Rows are mostly chronological, so the month of the previous row is usually reusable
+        private long cachedDay = Long.MIN_VALUE;
+        private int cachedMonthIndex;
+
+        void add(SessionColumnStore store, int row) {
+            int minutes = store.getDurationMinutes(row);
+            long start = store.getStartMicros(row);
+            long epochDay = Math.floorDiv(start, MICROS_PER_DAY);
+            int hour = (int) (Math.floorMod(start, MICROS_PER_DAY) / MICROS_PER_HOUR);
+            int weekday = (int) Math.floorMod(epochDay + 3, 7L); // 1970-01-01 was a Thursday
+
+            totalMinutes += minutes;
+            sessionCount++;
+            heatmap[weekday * 24 + hour] += minutes;
+            if (epochDay >= 0 && epochDay <= Integer.MAX_VALUE) {
+                days.set((int) epochDay);
+            }
+
+            if (epochDay != cachedDay) {
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                cachedDay = epochDay;
+                cachedMonthIndex = date.getYear() * 12 + date.getMonthValue() - 1;
+            }
+            long month = cachedMonthIndex & 0xFFFFFFFFL;
+
+            long projectKey = ((long) (store.getProjectId(row) + 1) << 32) | month;
+            projectMonths.computeIfAbsent(projectKey, k -> new long[1])[0] += minutes;
+
+            SessionType type = store.getSessionType(row);
+            int typeSlot = type != null ? type.ordinal() + 1 : 0;
+            typeMonths.computeIfAbsent(((long) typeSlot << 32) | month, k -> new long[1])[0] += minutes;
+        }
+
+        Partial merge(Partial other) {
+            totalMinutes += other.totalMinutes;
+            sessionCount += other.sessionCount;
+            for (int i = 0; i < heatmap.length; i++) {
+                heatmap[i] += other.heatmap[i];
+            }
+            days.or(other.days);
+            mergeBuckets(projectMonths, other.projectMonths);
+            mergeBuckets(typeMonths, other.typeMonths);
+            return this;
+        }
+
+        private static void mergeBuckets(Map<Long, long[]> into, Map<Long, long[]> from) {
+            for (Map.Entry<Long, long[]> entry : from.entrySet()) {
+                long[] bucket = into.get(entry.getKey());
+                if (bucket == null) {
+                    into.put(entry.getKey(), entry.getValue());
+                } else {
+                    bucket[0] += entry.getValue()[0];
+                }
+            }
+        }
+
+        AnalyticsReport toReport(List<String> projectNames, long todayEpochDay) {
+            long[][] grid = new long[7][24];
+            for (int weekday = 0; weekday < 7; weekday++) {
+                System.arraycopy(heatmap, weekday * 24, grid[weekday], 0, 24);
+            }
+
+            Map<String, SortedMap<YearMonth, Long>> byProject = new TreeMap<>();
+            for (Map.Entry<Long, long[]> entry : projectMonths.entrySet()) {
+                int projectId = (int) (entry.getKey() >>> 32) - 1;
+                String name = projectId < 0 ? "" : projectNames.get(projectId);
+                addMonth(byProject.computeIfAbsent(name, k -> new TreeMap<>()), entry.getKey(), entry.getValue()[0]);
+            }
+
+            Map<SessionType, SortedMap<YearMonth, Long>> byType = new EnumMap<>(SessionType.class);
+            for (Map.Entry<Long, long[]> entry : typeMonths.entrySet()) {
+                int typeSlot = (int) (entry.getKey() >>> 32);
+                SessionType type = typeSlot == 0 ? SessionType.WORK : TYPES[typeSlot - 1]; // untyped sessions count as work
+                addMonth(byType.computeIfAbsent(type, k -> new TreeMap<>()), entry.getKey(), entry.getValue()[0]);
+            }
+
+            return new AnalyticsReport(totalMinutes, sessionCount,
+                    currentStreak(todayEpochDay), longestStreak(), grid, byProject, byType);
+        }
+
+        private static void addMonth(SortedMap<YearMonth, Long> months, long key, long minutes) {
+            int monthIndex = (int) key;
+            YearMonth month = YearMonth.of(monthIndex / 12, monthIndex % 12 + 1);
+            months.merge(month, minutes, Long::sum);
+        }
+
+        private int longestStreak() {
+            int longest = 0;
+            int start = days.nextSetBit(0);
+            while (start >= 0) {
+                int end = days.nextClearBit(start);
+                longest = Math.max(longest, end - start);
+                start = days.nextSetBit(end);
+            }
+            return longest;
+        }
+
+        private int currentStreak(long todayEpochDay) {
+            if (todayEpochDay < 0 || todayEpochDay > Integer.MAX_VALUE) {
+                return 0;
+            }
+            int day = (int) todayEpochDay;
+            if (!days.get(day)) {
+                day--; // Today does not break the streak until it is over
+            }
+            int streak = 0;
+            while (day >= 0 && days.get(day)) {
+                streak++;
+                day--;
+            }
+            return streak;
+        }
+    }
+
+    private static final class AnalyzeTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient SessionColumnStore store;
+        private final int from;
+        private final int to;
+
+        AnalyzeTask(SessionColumnStore store, int from, int to) {
+            this.store = store;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= LEAF_ROWS) {
+                Partial partial = new Partial();
+                for (int row = from; row < to; row++) {
+                    partial.add(store, row);
+                }
+                return partial;
+            }
+
+            int middle = (from + to) >>> 1;
+            AnalyzeTask left = new AnalyzeTask(store, from, middle);
+            left.fork();
+            Partial right = new AnalyzeTask(store, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
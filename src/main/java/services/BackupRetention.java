@@ -0,0 +1,286 @@
+package services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Tiered retention for the backups of one data directory, plus a disk quota
+ * shared with the exports. Per data file it keeps every backup from the last
+ * hour, then the newest one per hour for a day, per day for a month and per
+ * week after that. If backups and exports together still exceed the quota,
+ * the oldest backups go first (never a file's newest one), then the oldest exports.
+ *
+ * Pruning runs on a shared background thread a few seconds after new backups
+ * or exports, from an in-memory catalog: the directories are only scanned on
+ * the first run and once an hour, to pick up files written by other processes.
+ */
+class BackupRetention {
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    private static final long WEEK = 7 * DAY;
+    private static final long MONTH = 30 * DAY;
+
+    private static final long PRUNE_DELAY_SECONDS = 5;
+    private static final long RESCAN_INTERVAL = HOUR;
+    // -Dstudyapp.backupQuotaMb limits backups plus exports (500 MB by default)
+    private static final long QUOTA_BYTES = Long.getLong("studyapp.backupQuotaMb", 500) * 1024 * 1024;
+
+    static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+    private static final DateTimeFormatter LEGACY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    // name_20250101_120000[_123][-2].json: data file name, time and an optional collision counter
+    private static final Pattern BACKUP_NAME = Pattern.compile("(.+)_(\\d{8}_\\d{6})(?:_(\\d{3}))?(?:-\\d+)?\\.json");
+
+    private static final ScheduledExecutorService PRUNER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "backup-pruner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * One backup or export file
+     */
+    private static final class Entry {
+        final Path path;
+        final String dataFile; // null for exports
+        final long time;
+        long size;             // -1 until known (exports are registered before they are written)
+
+        Entry(Path path, String dataFile, long time, long size) {
+            this.path = path;
+            this.dataFile = dataFile;
+            this.time = time;
+            this.size = size;
+        }
+    }
+
+    private final Path backupRoot;
+    private final Path exportRoot;
+    private final long quotaBytes;
+    private final Map<Path, Entry> catalog = new ConcurrentHashMap<>();
+    private final AtomicBoolean pruneScheduled = new AtomicBoolean(false);
+    private volatile long lastScan = 0;
+
+    BackupRetention(Path backupRoot, Path exportRoot) {
+        this(backupRoot, exportRoot, QUOTA_BYTES);
+    }
+
+    BackupRetention(Path backupRoot, Path exportRoot, long quotaBytes) {
+        this.backupRoot = backupRoot;
+        this.exportRoot = exportRoot;
+        this.quotaBytes = quotaBytes;
+    }
+
+    /**
+     * Record a backup just written for {@code dataFile} and schedule a prune
+     */
+    void backupCreated(String dataFile, Path backup, long size) {
+        catalog.put(backup, new Entry(backup, dataFile, System.currentTimeMillis(), size));
+        schedulePrune();
+    }
+
+    /**
+     * Record an export file (its size is read when pruning) and schedule a prune
+     */
+    void exportCreated(Path export) {
+        catalog.put(export, new Entry(export, null, System.currentTimeMillis(), -1));
+        schedulePrune();
+    }
+
+    private void schedulePrune() {
+        if (pruneScheduled.compareAndSet(false, true)) {
+            PRUNER.schedule(() -> {
+                pruneScheduled.set(false);
+                prune();
+            }, PRUNE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Apply the tiers and the quota now (runs on the pruner thread)
+     */
+    synchronized void prune() {
+        try {
+            long now = System.currentTimeMillis();
+            if (now - lastScan > RESCAN_INTERVAL) {
+                scan();
+                lastScan = now;
+            }
+
+            Map<String, List<Entry>> backupsByFile = new HashMap<>();
+            List<Entry> exports = new ArrayList<>();
+            for (Entry entry : catalog.values()) {
+                if (entry.dataFile != null) {
+                    backupsByFile.computeIfAbsent(entry.dataFile, k -> new ArrayList<>()).add(entry);
+                } else {
+                    exports.add(entry);
+                }
+            }
+
+            // Tiers: the newest backup per bucket survives; buckets widen with age
+            List<Entry> kept = new ArrayList<>();
+            Set<Entry> newest = new HashSet<>();
+            for (List<Entry> backups : backupsByFile.values()) {
+                backups.sort(Comparator.comparingLong((Entry e) -> e.time).reversed());
+                newest.add(backups.get(0));
+                Set<String> buckets = new HashSet<>();
+                for (Entry entry : backups) {
+                    String bucket = bucket(now - entry.time, entry.time);
+                    if (entry == backups.get(0) || bucket == null || buckets.add(bucket)) {
+                        kept.add(entry);
+                    } else {
+                        delete(entry);
+                    }
+                }
+            }
+
+            // Quota: oldest backups first, then oldest exports
+            long total = 0;
+            for (Entry entry : kept) {
+                total += sizeOf(entry);
+            }
+            for (Entry entry : exports) {
+                total += sizeOf(entry);
+            }
+            if (total <= quotaBytes) {
+                return;
+            }
+            kept.removeAll(newest);
+            kept.sort(Comparator.comparingLong(e -> e.time));
+            exports.sort(Comparator.comparingLong(e -> e.time));
+            List<Entry> candidates = new ArrayList<>(kept);
+            candidates.addAll(exports);
+            for (Entry entry : candidates) {
+                if (total <= quotaBytes) {
+                    break;
+                }
+                total -= sizeOf(entry);
+                delete(entry);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error pruning backups: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retention bucket of a backup of the given age, or null to keep it regardless (last hour)
+     */
+    private static String bucket(long age, long time) {
+        if (age < HOUR) {
+            return null;
+        } else if (age < DAY) {
+            return "h" + Math.floorDiv(time, HOUR);
+        } else if (age < MONTH) {
+            return "d" + Math.floorDiv(time, DAY);
+        }
+        return "w" + Math.floorDiv(time, WEEK);
+    }
+
+    private static long sizeOf(Entry entry) {
+        if (entry.size < 0) {
+            try {
+                entry.size = Files.size(entry.path);
+            } catch (IOException e) {
+                return 0; // Not written yet, or already gone
+            }
+        }
+        return entry.size;
+    }
+
+    private void delete(Entry entry) {
+        catalog.remove(entry.path);
+        try {
+            Files.deleteIfExists(entry.path);
+            Files.deleteIfExists(LocalStorage.checksumPath(entry.path));
+        } catch (IOException e) {
+            System.err.println("Error deleting backup " + entry.path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the catalog from the backup and export directories
+     */
+    private void scan() {
+        Map<Path, Entry> found = new HashMap<>();
+        if (Files.isDirectory(backupRoot)) {
+            try (Stream<Path> files = Files.walk(backupRoot)) {
+                files.filter(Files::isRegularFile).forEach(path -> {
+                    Entry entry = backupEntry(path);
+                    if (entry != null) {
+                        found.put(path, entry);
+                    }
+                });
+            } catch (IOException e) {
+                System.err.println("Error listing backups: " + e.getMessage());
+            }
+        }
+        if (Files.isDirectory(exportRoot)) {
+            try (Stream<Path> files = Files.list(exportRoot)) {
+                files.filter(Files::isRegularFile).forEach(path -> {
+                    BasicFileAttributes attributes = attributes(path);
+                    if (attributes != null) {
+                        found.put(path, new Entry(path, null, attributes.lastModifiedTime().toMillis(), attributes.size()));
+                    }
+                });
+            } catch (IOException e) {
+                System.err.println("Error listing exports: " + e.getMessage());
+            }
+        }
+        catalog.keySet().retainAll(found.keySet());
+        found.forEach(catalog::putIfAbsent);
+    }
+
+    private Entry backupEntry(Path path) {
+        Matcher matcher = BACKUP_NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            return null;
+        }
+        BasicFileAttributes attributes = attributes(path);
+        if (attributes == null) {
+            return null;
+        }
+        Path relative = backupRoot.relativize(path.resolveSibling(matcher.group(1) + ".json"));
+        String dataFile = relative.toString().replace('\\', '/');
+
+        long time;
+        try {
+            String stamp = matcher.group(2) + (matcher.group(3) != null ? "_" + matcher.group(3) : "");
+            LocalDateTime dateTime = matcher.group(3) != null
+                    ? LocalDateTime.parse(stamp, TIMESTAMP)
+                    : LocalDateTime.parse(stamp, LEGACY_TIMESTAMP);
+            time = dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            time = attributes.lastModifiedTime().toMillis();
+        }
+        return new Entry(path, dataFile, time, attributes.size());
+    }
+
+    private static BasicFileAttributes attributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
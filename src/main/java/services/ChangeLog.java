@@ -0,0 +1,439 @@
+package services;
+
+import models.Task;
+import org.json.JSONObject;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.LongFunction;
+
+/**
+ * Append-only log of record changes in one data directory (one sync replica).
+ * Every add, update or delete of a task or session appends a line with the
+ * record's new version vector; deletes stay in the log as tombstones. Only the
+ * latest entry per record is kept in memory, ordered by sequence number, so
+ * the changes since a given point are read without touching older history.
+ *
+ * Once the log holds many more lines than records, it is compacted: the latest
+ * entry per record (tombstones included, sequence numbers unchanged) is written
+ * to a new log file, which log.json then names, and the old file is deleted.
+ * Other processes notice the old file is gone and reload from the new one.
+ *
+ * Files (in data/sync): replica.json with this replica's id and the directory
+ * it was assigned in (a copied data directory gets a new id), changes.jsonl
+ * (or changes-N.jsonl after N compactions) with the log, log.json with the
+ * current compaction number, and peers.json with the last sequence received
+ * from each peer.
+ */
+public class ChangeLog {
+    public static final String TASK = "task";
+    public static final String SESSION = "session";
+
+    private static final String LOG_FILE = "sync/changes.jsonl";
+    private static final String LOG_POINTER_FILE = "sync/log.json";
+    private static final String REPLICA_FILE = "sync/replica.json";
+    private static final String PEERS_FILE = "sync/peers.json";
+    // Compact once the log holds more than twice as many lines as records, plus this many
+    private static final int COMPACT_SLACK = 1000;
+
+    /**
+     * Latest known state of one record
+     */
+    public static final class Entry {
+        private final long seq;
+        private final String kind;
+        private final String id;
+        private final VersionVector version;
+        private final boolean deleted;
+        private final long timestamp;  // wall clock of the original change, for resolving conflicts
+        private final String origin;   // replica that made the original change
+        private final long startMicros; // sessions only: locates the monthly partition
+
+        Entry(long seq, String kind, String id, VersionVector version, boolean deleted,
+              long timestamp, String origin, long startMicros) {
+            this.seq = seq;
+            this.kind = kind;
+            this.id = id;
+            this.version = version;
+            this.deleted = deleted;
+            this.timestamp = timestamp;
+            this.origin = origin;
+            this.startMicros = startMicros;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getKey() {
+            return key(kind, id);
+        }
+
+        public VersionVector getVersion() {
+            return version;
+        }
+
+        public boolean isDeleted() {
+            return deleted;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public long getStartMicros() {
+            return startMicros;
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("seq", seq);
+            json.put("kind", kind);
+            json.put("id", id);
+            json.put("version", version.toJson());
+            json.put("deleted", deleted);
+            json.put("timestamp", timestamp);
+            json.put("origin", origin);
+            if (SESSION.equals(kind)) {
+                json.put("startMicros", startMicros);
+            }
+            return json;
+        }
+
+        static Entry fromJson(JSONObject json) {
+            return new Entry(json.getLong("seq"), json.getString("kind"), json.getString("id"),
+                    VersionVector.fromJson(json.optJSONObject("version")), json.optBoolean("deleted", false),
+                    json.optLong("timestamp", 0), json.optString("origin", ""), json.optLong("startMicros", 0));
+        }
+    }
+
+    private final LocalStorage localStorage;
+    private String replicaId;
+    private final Map<String, Entry> latest = new HashMap<>();
+    private final TreeMap<Long, Entry> latestBySeq = new TreeMap<>();
+    private long generation = 0;  // Number of compactions, names the log file
+    private long offset = 0;
+    private long lines = 0;       // Lines read from the current log file
+    private long lastSeq = 0;
+
+    private ChangeLog(LocalStorage localStorage, String replicaId) {
+        this.localStorage = localStorage;
+        this.replicaId = replicaId;
+    }
+
+    /**
+     * Open the log of a data directory. The first time, every stored record is
+     * logged once so it takes part in sync.
+     */
+    public static ChangeLog open(LocalStorage localStorage, StorageBackend storage) {
+        JSONObject replica = localStorage.readJsonFile(REPLICA_FILE);
+        String replicaId = replica.optString("replicaId", null);
+        String directory = replica.optString("directory", null);
+        if (replicaId == null || (directory != null && !directory.equals(directoryOf(localStorage)))) {
+            // New, or a copy of another data directory that must not share its id
+            replicaId = assignReplicaId(localStorage);
+        } else if (directory == null) {
+            replica.put("directory", directoryOf(localStorage)); // Written by an older version
+            localStorage.writeJsonFile(REPLICA_FILE, replica);
+        }
+
+        ChangeLog log = new ChangeLog(localStorage, replicaId);
+        log.generation = log.readGeneration();
+        if (log.generation > 0) {
+            // Left over if a compaction was interrupted before it could delete it
+            localStorage.deleteDataFile(logFile(log.generation - 1));
+        }
+        log.refresh();
+        if (log.lastSeq == 0) {
+            log.logExisting(storage);
+        }
+        return log;
+    }
+
+    /**
+     * Log every stored record once. Sessions are read a year at a time, newest
+     * first, so the whole history is never held in memory at once.
+     */
+    private void logExisting(StorageBackend storage) {
+        List<LongFunction<Entry>> changes = new ArrayList<>();
+        for (Task task : storage.loadTasks()) {
+            String id = task.getId();
+            changes.add(seq -> localChange(seq, TASK, id, 0, false));
+        }
+        int year = LocalDate.now().getYear() + 1;
+        long toMicros = Long.MAX_VALUE;
+        while (true) {
+            long fromMicros = SessionColumnStore.toMicros(LocalDate.of(year, 1, 1).atStartOfDay());
+            SessionColumnStore sessions = new SessionColumnStore();
+            storage.querySessions(fromMicros, toMicros, sessions);
+            for (int row = 0; row < sessions.size(); row++) {
+                String id = sessions.getId(row);
+                long startMicros = sessions.getStartMicros(row);
+                changes.add(seq -> localChange(seq, SESSION, id, startMicros, false));
+            }
+            if (!changes.isEmpty()) {
+                append(changes);
+                changes = new ArrayList<>();
+            }
+            if (!storage.hasSessionsBefore(fromMicros)) {
+                break;
+            }
+            toMicros = fromMicros;
+            year--;
+        }
+    }
+
+    public synchronized String getReplicaId() {
+        return replicaId;
+    }
+
+    /**
+     * Give this replica a new id, e.g. when sync meets another replica with the same one
+     */
+    public synchronized void regenerateReplicaId() {
+        replicaId = assignReplicaId(localStorage);
+    }
+
+    private static String assignReplicaId(LocalStorage localStorage) {
+        String replicaId = UUID.randomUUID().toString();
+        JSONObject replica = new JSONObject();
+        replica.put("replicaId", replicaId);
+        replica.put("directory", directoryOf(localStorage));
+        localStorage.writeJsonFile(REPLICA_FILE, replica);
+        return replicaId;
+    }
+
+    private static String directoryOf(LocalStorage localStorage) {
+        return localStorage.getDataDirectory().toAbsolutePath().normalize().toString();
+    }
+
+    public static String key(String kind, String id) {
+        return kind + ":" + id;
+    }
+
+    /**
+     * Read entries appended since the last call (by this or another process)
+     */
+    public synchronized void refresh() {
+        if (!localStorage.dataFileExists(logFile(generation))) {
+            long current = readGeneration();
+            if (current != generation) {
+                // Compacted by another process: every record's latest entry is in the new file
+                reset(current);
+            }
+        }
+        offset = localStorage.readLines(logFile(generation), offset, line -> apply(Entry.fromJson(new JSONObject(line))));
+    }
+
+    private void apply(Entry entry) {
+        Entry previous = latest.put(entry.getKey(), entry);
+        if (previous != null) {
+            latestBySeq.remove(previous.seq);
+        }
+        latestBySeq.put(entry.seq, entry);
+        lastSeq = Math.max(lastSeq, entry.seq);
+        lines++;
+    }
+
+    private void reset(long newGeneration) {
+        generation = newGeneration;
+        offset = 0;
+        lines = 0;
+        latest.clear();
+        latestBySeq.clear();
+        lastSeq = 0;
+    }
+
+    private long readGeneration() {
+        return localStorage.readJsonFile(LOG_POINTER_FILE).optLong("generation", 0);
+    }
+
+    private static String logFile(long generation) {
+        return generation == 0 ? LOG_FILE : "sync/changes-" + generation + ".jsonl";
+    }
+
+    // ==================== RECORDING ====================
+
+    public void recordTask(String id, boolean deleted) {
+        record(TASK, id, 0, deleted);
+    }
+
+    public void recordSession(String id, long startMicros, boolean deleted) {
+        record(SESSION, id, startMicros, deleted);
+    }
+
+    /**
+     * Log a change made on this replica: the record's vector gains one change from this replica
+     */
+    private void record(String kind, String id, long startMicros, boolean deleted) {
+        append(List.of(seq -> localChange(seq, kind, id, startMicros, deleted)));
+    }
+
+    private Entry localChange(long seq, String kind, String id, long startMicros, boolean deleted) {
+        Entry previous = latest.get(key(kind, id));
+        VersionVector version = (previous != null ? previous.version : new VersionVector()).increment(replicaId);
+        return new Entry(seq, kind, id, version, deleted, System.currentTimeMillis(), replicaId, startMicros);
+    }
+
+    /**
+     * Log several local changes with one append
+     */
+    public void recordChanges(Collection<String> savedTasks, Collection<String> deletedTasks,
+                              Map<String, Long> savedSessions, Map<String, Long> deletedSessions) {
+        List<LongFunction<Entry>> changes = new ArrayList<>();
+        for (String id : savedTasks) {
+            changes.add(seq -> localChange(seq, TASK, id, 0, false));
+        }
+        for (String id : deletedTasks) {
+            changes.add(seq -> localChange(seq, TASK, id, 0, true));
+        }
+        for (Map.Entry<String, Long> session : savedSessions.entrySet()) {
+            changes.add(seq -> localChange(seq, SESSION, session.getKey(), session.getValue(), false));
+        }
+        for (Map.Entry<String, Long> session : deletedSessions.entrySet()) {
+            changes.add(seq -> localChange(seq, SESSION, session.getKey(), session.getValue(), true));
+        }
+        if (!changes.isEmpty()) {
+            append(changes);
+        }
+    }
+
+    /**
+     * Log a change received from another replica, keeping its version, time and origin
+     */
+    public void recordApplied(Entry change, VersionVector version) {
+        append(List.of(seq -> new Entry(seq, change.kind, change.id, version, change.deleted,
+                change.timestamp, change.origin, change.startMicros)));
+    }
+
+    /**
+     * Log every given record as changed and every other known record as deleted
+     * (after an import, restore or clear replaced the data wholesale)
+     */
+    public synchronized void recordSnapshot(List<Task> tasks, SessionColumnStore sessions) {
+        refresh();
+        Set<String> live = new HashSet<>();
+        List<LongFunction<Entry>> changes = new ArrayList<>();
+        for (Task task : tasks) {
+            String id = task.getId();
+            if (live.add(key(TASK, id))) {
+                changes.add(seq -> localChange(seq, TASK, id, 0, false));
+            }
+        }
+        for (int row = 0; row < sessions.size(); row++) {
+            String id = sessions.getId(row);
+            long startMicros = sessions.getStartMicros(row);
+            if (live.add(key(SESSION, id))) {
+                changes.add(seq -> localChange(seq, SESSION, id, startMicros, false));
+            }
+        }
+        for (Entry entry : latest.values()) {
+            if (!entry.deleted && !live.contains(entry.getKey())) {
+                changes.add(seq -> localChange(seq, entry.kind, entry.id, entry.startMicros, true));
+            }
+        }
+        if (!changes.isEmpty()) {
+            append(changes);
+        }
+    }
+
+    /**
+     * Append entries in one locked write. Each factory receives the next sequence
+     * number after the log has caught up with other writers, then the new lines are read back.
+     */
+    private synchronized void append(List<LongFunction<Entry>> changes) {
+        localStorage.runLocked(() -> {
+            refresh(); // Also picks the current log file, should another process have compacted it
+            StringBuilder text = new StringBuilder();
+            long seq = lastSeq;
+            for (LongFunction<Entry> change : changes) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(change.apply(++seq).toJson());
+            }
+            localStorage.appendLine(logFile(generation), text::toString);
+        });
+        refresh();
+        if (lines > 2L * latest.size() + COMPACT_SLACK) {
+            compact();
+        }
+    }
+
+    /**
+     * Replace the log with the latest entry per record, under the data lock so no
+     * other process appends in between
+     */
+    private synchronized void compact() {
+        localStorage.runLocked(() -> {
+            refresh();
+            long next = generation + 1;
+            localStorage.deleteDataFile(logFile(next)); // Left over from an interrupted compaction
+            StringBuilder text = new StringBuilder();
+            for (Entry entry : latestBySeq.values()) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(entry.toJson());
+            }
+            localStorage.appendLine(logFile(next), text::toString);
+
+            JSONObject pointer = new JSONObject();
+            pointer.put("generation", next);
+            localStorage.writeJsonFile(LOG_POINTER_FILE, pointer);
+            localStorage.deleteDataFile(logFile(generation));
+            reset(next);
+            refresh();
+        });
+    }
+
+    // ==================== READING ====================
+
+    public synchronized Entry getLatest(String key) {
+        return latest.get(key);
+    }
+
+    /**
+     * Latest entries of the records changed after sequence number {@code seq}
+     */
+    public synchronized Collection<Entry> getChangesSince(long seq) {
+        return new ArrayList<>(latestBySeq.tailMap(seq, false).values());
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    // ==================== PEERS ====================
+
+    /**
+     * Last sequence number of the peer's log that this replica has received
+     */
+    public long getSyncedSeq(String peerId) {
+        return localStorage.readJsonFile(PEERS_FILE).optLong(peerId, 0);
+    }
+
+    public void setSyncedSeq(String peerId, long seq) {
+        localStorage.updateJsonFile(PEERS_FILE, peers -> peers.put(peerId, seq));
+    }
+}
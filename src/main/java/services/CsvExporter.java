@@ -0,0 +1,166 @@
+package services;
+
+import models.SessionType;
+import models.Task;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Streaming CSV/TSV report writer for sessions and tasks.
+ * Rows are written one at a time through a buffered writer straight from the
+ * in-memory stores or the storage backend, so no intermediate document is
+ * built and memory use does not grow with the number of rows exported.
+ */
+public class CsvExporter {
+    public static final char CSV = ',';
+    public static final char TSV = '\t';
+
+    private static final String[] SESSION_HEADER = {
+        "id", "startTime", "endTime", "durationMinutes", "sessionType", "projectName", "subject", "notes"
+    };
+    private static final String[] TASK_HEADER = {
+        "id", "title", "description", "completed", "createdAt", "taskType", "estimatedTime", "totalTimeSpent"
+    };
+
+    private final char delimiter;
+
+    public CsvExporter() {
+        this(CSV);
+    }
+
+    public CsvExporter(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Write all sessions passing the filter
+     * @return number of rows written (excluding the header)
+     */
+    public int exportSessions(SessionColumnStore store, SessionFilter filter, Path target) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            writeRow(writer, SESSION_HEADER);
+            return writeSessions(writer, store, filter);
+        }
+    }
+
+    /**
+     * Write all stored sessions passing the filter, reading them from the
+     * backend a part at a time instead of loading the whole range
+     * @return number of rows written (excluding the header)
+     */
+    public int exportSessions(StorageBackend storage, SessionFilter filter, Path target) throws IOException {
+        int[] written = {0};
+        try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            writeRow(writer, SESSION_HEADER);
+            storage.scanSessions(filter.getFromMicros(), filter.getToMicros(), sessions -> {
+                try {
+                    written[0] += writeSessions(writer, sessions, filter);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return written[0];
+    }
+
+    private int writeSessions(Writer writer, SessionColumnStore store, SessionFilter filter) throws IOException {
+        int written = 0;
+        String[] row = new String[SESSION_HEADER.length];
+        for (int i = 0; i < store.size(); i++) {
+            if (!filter.matches(store, i)) {
+                continue;
+            }
+            SessionType type = store.getSessionType(i);
+            row[0] = store.getId(i);
+            row[1] = IsoTimestamps.formatMicros(store.getStartMicros(i));
+            row[2] = IsoTimestamps.formatMicros(store.getEndMicros(i));
+            row[3] = Integer.toString(store.getDurationMinutes(i));
+            row[4] = type != null ? type.name() : "";
+            row[5] = store.getProjectName(i);
+            row[6] = store.getSubject(i);
+            row[7] = store.getNotes(i);
+            writeRow(writer, row);
+            written++;
+        }
+        return written;
+    }
+
+    /**
+     * Write tasks created in [from, to); either bound may be null
+     * @return number of rows written (excluding the header)
+     */
+    public int exportTasks(List<Task> tasks, LocalDateTime from, LocalDateTime to, Path target) throws IOException {
+        int written = 0;
+        try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            writeRow(writer, TASK_HEADER);
+            String[] row = new String[TASK_HEADER.length];
+            for (Task task : tasks) {
+                LocalDateTime createdAt = task.getCreatedAt();
+                if ((from != null && createdAt.isBefore(from)) || (to != null && !createdAt.isBefore(to))) {
+                    continue;
+                }
+                row[0] = task.getId();
+                row[1] = task.getTitle();
+                row[2] = task.getDescription();
+                row[3] = Boolean.toString(task.isCompleted());
+                row[4] = IsoTimestamps.format(createdAt);
+                row[5] = task.getTaskType() != null ? task.getTaskType().name() : "";
+                row[6] = Integer.toString(task.getEstimatedTime());
+                row[7] = Integer.toString(task.getTotalTimeSpent());
+                writeRow(writer, row);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private void writeRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(delimiter);
+            }
+            writeField(writer, values[i]);
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Write one field, quoting it (RFC 4180) only when it contains special characters
+     */
+    private void writeField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,110 @@
+package services;
+
+import models.StudySession;
+import models.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit of work on a {@link DataManager}: adds, updates and removals are
+ * collected, then validated and applied together by {@link #apply()}, with
+ * one write (and one backup) per affected file instead of one per change.
+ *
+ * As with {@link DataManager#updateTask}, tasks passed to {@link #updateTask}
+ * have already been changed by the caller.
+ */
+public class DataBatch {
+
+    enum Kind {
+        ADD_TASK,
+        UPDATE_TASK,
+        REMOVE_TASK,
+        ADD_SESSION,
+        REMOVE_SESSION
+    }
+
+    static final class Operation {
+        final Kind kind;
+        final Task task;
+        final StudySession session;
+        final String sessionId;
+
+        Operation(Kind kind, Task task, StudySession session, String sessionId) {
+            this.kind = kind;
+            this.task = task;
+            this.session = session;
+            this.sessionId = sessionId;
+        }
+    }
+
+    private final DataManager dataManager;
+    private final List<Operation> operations = new ArrayList<>();
+    private boolean applied = false;
+
+    DataBatch(DataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+
+    public DataBatch addTask(Task task) {
+        return add(new Operation(Kind.ADD_TASK, task, null, null));
+    }
+
+    public DataBatch updateTask(Task task) {
+        return add(new Operation(Kind.UPDATE_TASK, task, null, null));
+    }
+
+    public DataBatch removeTask(Task task) {
+        return add(new Operation(Kind.REMOVE_TASK, task, null, null));
+    }
+
+    public DataBatch addStudySession(StudySession session) {
+        return add(new Operation(Kind.ADD_SESSION, null, session, session != null ? session.getId() : null));
+    }
+
+    public DataBatch removeStudySession(String sessionId) {
+        return add(new Operation(Kind.REMOVE_SESSION, null, null, sessionId));
+    }
+
+    private DataBatch add(Operation operation) {
+        if (applied) {
+            throw new IllegalStateException("Batch was already applied");
+        }
+        operations.add(operation);
+        return this;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Validate every change, then apply them all; nothing is applied if any change is invalid
+     * @throws IllegalArgumentException listing the invalid changes
+     */
+    public void apply() {
+        if (applied) {
+            throw new IllegalStateException("Batch was already applied");
+        }
+        dataManager.applyBatch(this);
+        applied = true;
+    }
+
+    List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    boolean hasSessionOperations() {
+        for (Operation operation : operations) {
+            if (operation.kind == Kind.ADD_SESSION || operation.kind == Kind.REMOVE_SESSION) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
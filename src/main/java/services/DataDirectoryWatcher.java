@@ -0,0 +1,95 @@
+package services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Watches the data directory on a daemon thread and reports JSON files that
+ * were changed by another process. Events caused by this process's own
+ * writes are filtered out by the {@code isExternal} check.
+ */
+public class DataDirectoryWatcher implements Closeable {
+    // A writer replaces a file in a quick burst (temp file, move, backup); report the burst once
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Path root;
+    private final Predicate<String> isExternal;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    DataDirectoryWatcher(Path root, List<Path> directories, Predicate<String> isExternal, Runnable onChange)
+            throws IOException {
+        this.root = root;
+        this.isExternal = isExternal;
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path directory : directories) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        this.thread = new Thread(this::run, "data-directory-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                boolean changed = collect(watchService.take());
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= collect(next);
+                }
+                if (changed) {
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private boolean collect(WatchKey key) {
+        boolean changed = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            String name = file.getFileName().toString();
+            if (!name.endsWith(".json")) {
+                continue; // Temp and lock files
+            }
+            String filename = root.relativize(file).toString().replace('\\', '/');
+            if (isExternal.test(filename)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing data directory watcher: " + e.getMessage());
+        }
+    }
+}
@@ -1,233 +1,932 @@
 package services;
 
+import models.AnalyticsReport;
 import models.StudySession;
 import models.Task;
 import models.SessionType;
+import models.TaskSortOrder;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class DataManager {
-    private static final String TASKS_FILE = "tasks.json";
-    private static final String SESSIONS_FILE = "sessions.json";
-    private static final String THEME_FILE = "theme.json";
+    private static final String STATISTICS_FILE = "statistics.json";
+    private static final long STATISTICS_FLUSH_DELAY_MILLIS = 500;
+
+    // Statistics change with every session; writes are batched like settings writes
+    private static final ScheduledExecutorService STATISTICS_WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "statistics-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private List<Task> tasks;
-    private List<StudySession> studySessions;
+    private SessionColumnStore sessionStore; // Sessions are stored column-wise, not as objects
+    // Sessions starting before this are still on disk; older ones are loaded on first query
+    private volatile long sessionsLoadedFrom = Long.MIN_VALUE;
     private LocalStorage localStorage;
+    private final StorageBackend storage; // Tasks and sessions; statistics and settings stay in LocalStorage
+    private final SettingsStore settings;
+    private final ChangeLog changeLog; // Record versions for syncing this data directory with others
+
+    // Full-text indexes, kept in sync on every mutation
+    private final SearchIndex<Task> taskIndex = new SearchIndex<>();
+    private final SearchIndex<String> sessionIndex = new SearchIndex<>(); // keyed by session id
+    // Pre-sorted task orders, repositioned on every task mutation
+    private final TaskSortIndex taskSortIndex = new TaskSortIndex();
+    private final AnalyticsEngine analyticsEngine = new AnalyticsEngine();
+
+    // Percentile sketches, updated incrementally; rebuilt only after removals
+    private SessionStatistics statistics = new SessionStatistics();
+    private final Set<Task> tasksInStatistics = new HashSet<>();
+    private volatile boolean sessionStatisticsStale = false;
+    private volatile boolean taskStatisticsStale = false;
+    private volatile boolean statisticsDirty = false; // Changed since statistics.json was written
+    private final AtomicBoolean statisticsFlushScheduled = new AtomicBoolean(false);
+    private final Object statisticsWriteLock = new Object(); // Keeps flushes in order
+
+    // Guards all of the state above: public methods take the lock, private helpers expect it held.
+    // Readers run in parallel, and unlike synchronized, waiting for it does not pin virtual threads.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     public DataManager() {
+        this(new LocalStorage(), null);
+    }
+
+    /**
+     * Data manager on another data directory (e.g. a scratch directory for a benchmark)
+     */
+    public DataManager(Path dataDirectory) {
+        this(new LocalStorage(dataDirectory), null);
+    }
+
+    /**
+     * Data manager on an explicit storage backend (e.g. an in-memory database)
+     */
+    public DataManager(StorageBackend storage) {
+        this(new LocalStorage(), storage);
+    }
+
+    private DataManager(LocalStorage localStorage, StorageBackend storage) {
         this.tasks = new ArrayList<>();
-        this.studySessions = new ArrayList<>();
-        this.localStorage = new LocalStorage();
+        this.sessionStore = new SessionColumnStore();
+        this.localStorage = localStorage;
         this.localStorage.ensureDirectoriesExist();
+        this.storage = storage != null ? storage : StorageBackend.create(localStorage);
+        this.changeLog = ChangeLog.open(localStorage, this.storage);
+        this.settings = new SettingsStore(localStorage);
     }
 
     public void loadData() {
-        loadTasks();
-        loadStudySessions();
+        write(() -> {
+            loadTasks();
+            loadStudySessions();
+            loadStatistics();
+        });
+        settings.load();
+    }
+
+    /**
+     * User preferences, cached in memory and saved in the background
+     */
+    public SettingsStore getSettings() {
+        return settings;
     }
 
+    /**
+     * Save what is only kept in memory (the statistics). Tasks and sessions are
+     * saved record by record as they change, so they are not rewritten here: a
+     * full rewrite would drop records another process added in the meantime.
+     */
     public void saveData() {
+        flushStatistics();
+    }
+
+    /**
+     * Replace everything stored with the data in memory (after an import)
+     */
+    private void saveAll() {
         saveTasks();
-        saveStudySessions();
+        // A partially loaded history must not replace the stored one
+        if (sessionsLoadedFrom == Long.MIN_VALUE) {
+            saveStudySessions();
+        }
+        scheduleStatisticsSave();
     }
 
     private void loadTasks() {
-        try {
-            JSONObject data = localStorage.readJsonFile(TASKS_FILE);
-            JSONArray jsonArray = data.optJSONArray("tasks");
-            if (jsonArray == null) {
-                // Try reading as array directly (legacy format)
-                jsonArray = new JSONArray(data.toString());
-                if (jsonArray.length() == 0) {
-                    return;
-                }
-            }
+        List<Task> loaded = storage.loadTasks();
+        if (loaded.isEmpty()) {
+            return;
+        }
+        tasks.clear();
+        tasks.addAll(loaded);
+        rebuildTaskIndex();
+    }
 
-            tasks.clear();
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject jsonTask = jsonArray.getJSONObject(i);
-                Task task = new Task();
-                task.setId(jsonTask.getString("id"));
-                task.setTitle(jsonTask.getString("title"));
-                task.setDescription(jsonTask.optString("description", ""));
-                task.setCompleted(jsonTask.getBoolean("completed"));
-                task.setCreatedAt(LocalDateTime.parse(jsonTask.getString("createdAt")));
+    private void saveTasks() {
+        storage.saveTasks(tasks);
+    }
+
+    /**
+     * Load the sessions of the current month and week; older months stay on
+     * disk until a query reaches back to them
+     */
+    private void loadStudySessions() {
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
+        long from = startOfDay(weekStart.withDayOfMonth(1));
+
+        SessionColumnStore loaded = new SessionColumnStore();
+        storage.querySessions(from, Long.MAX_VALUE, loaded);
+        sessionStore = loaded;
+        sessionsLoadedFrom = from;
+        rebuildSessionIndex();
+    }
 
-                // Handle time tracking properties
-                task.setActive(jsonTask.optBoolean("active", false));
-                task.setTotalTimeSpent(jsonTask.optInt("totalTimeSpent", 0));
-                task.setEstimatedTime(jsonTask.optInt("estimatedTime", 0));
+    // ==================== CHANGES BY OTHER PROCESSES ====================
 
-                tasks.add(task);
+    /**
+     * Reload changes that other processes made to the store whenever they
+     * happen. {@code executor} runs the reload (e.g. Platform::runLater, so it
+     * happens on the thread that uses this data manager), and
+     * {@code onReloaded} is called after changes were merged.
+     */
+    public void watchExternalChanges(Executor executor, Runnable onReloaded) {
+        storage.watchExternalChanges(() -> executor.execute(() -> {
+            if (reloadExternalChanges()) {
+                onReloaded.run();
             }
-        } catch (Exception e) {
-            System.err.println("Error loading tasks: " + e.getMessage());
-        }
+        }));
     }
 
-    private void saveTasks() {
-        JSONArray jsonArray = new JSONArray();
+    /**
+     * Merge records that other processes added, changed or removed since this
+     * instance last read or wrote them; unchanged records are left alone
+     * @return true if anything changed
+     */
+    public boolean reloadExternalChanges() {
+        return write(() -> {
+            boolean changed = false;
+            if (storage.hasExternalTaskChanges()) {
+                changed |= mergeTasks(storage.loadTasks());
+            }
+            for (long[] range : storage.getExternalSessionChanges()) {
+                long from = Math.max(range[0], sessionsLoadedFrom);
+                if (from < range[1]) {
+                    changed |= mergeSessions(from, range[1]);
+                }
+            }
+            return changed;
+        });
+    }
+
+    private boolean mergeTasks(List<Task> stored) {
+        Map<String, Task> current = new HashMap<>();
         for (Task task : tasks) {
-            JSONObject jsonTask = new JSONObject();
-            jsonTask.put("id", task.getId());
-            jsonTask.put("title", task.getTitle());
-            jsonTask.put("description", task.getDescription());
-            jsonTask.put("completed", task.isCompleted());
-            jsonTask.put("createdAt", task.getCreatedAt().toString());
+            current.put(task.getId(), task);
+        }
 
-            // Save time tracking properties
-            jsonTask.put("active", task.isActive());
-            jsonTask.put("totalTimeSpent", task.getTotalTimeSpent());
-            jsonTask.put("estimatedTime", task.getEstimatedTime());
+        boolean changed = false;
+        for (Task storedTask : stored) {
+            Task task = current.remove(storedTask.getId());
+            if (task == null) {
+                tasks.add(storedTask);
+                indexTask(storedTask);
+                trackTaskStatistics(storedTask);
+                changed = true;
+            } else if (copyChangedFields(storedTask, task)) {
+                indexTask(task);
+                trackTaskStatistics(task);
+                changed = true;
+            }
+        }
+        // Whatever is left was deleted elsewhere
+        for (Task removed : current.values()) {
+            tasks.remove(removed);
+            taskIndex.remove(removed);
+            taskSortIndex.remove(removed);
+            if (tasksInStatistics.remove(removed)) {
+                taskStatisticsStale = true;
+            }
+            changed = true;
+        }
+        return changed;
+    }
 
-            jsonArray.put(jsonTask);
+    /**
+     * Copy the persisted fields of {@code from} into {@code to}, keeping the
+     * object (and the UI bound to it); which task is active stays per instance
+     */
+    private static boolean copyChangedFields(Task from, Task to) {
+        if (Objects.equals(from.getTitle(), to.getTitle())
+                && Objects.equals(from.getDescription(), to.getDescription())
+                && from.isCompleted() == to.isCompleted()
+                && Objects.equals(from.getCreatedAt(), to.getCreatedAt())
+                && from.getTotalTimeSpent() == to.getTotalTimeSpent()
+                && from.getEstimatedTime() == to.getEstimatedTime()) {
+            return false;
+        }
+        to.setTitle(from.getTitle());
+        to.setDescription(from.getDescription());
+        to.setCompleted(from.isCompleted());
+        to.setCreatedAt(from.getCreatedAt());
+        to.setTotalTimeSpent(from.getTotalTimeSpent());
+        to.setEstimatedTime(from.getEstimatedTime());
+        return true;
+    }
+
+    /**
+     * Bring the sessions starting in [fromMicros, toMicros) in line with the store
+     */
+    private boolean mergeSessions(long fromMicros, long toMicros) {
+        SessionColumnStore stored = new SessionColumnStore();
+        storage.querySessions(fromMicros, toMicros, stored);
+        Set<String> storedIds = new HashSet<>();
+        for (int row = 0; row < stored.size(); row++) {
+            storedIds.add(stored.getId(row));
         }
 
-        JSONObject data = new JSONObject();
-        data.put("tasks", jsonArray);
-        localStorage.writeJsonFile(TASKS_FILE, data);
+        boolean changed = false;
+        Set<String> currentIds = new HashSet<>();
+        for (int row = sessionStore.size() - 1; row >= 0; row--) {
+            long start = sessionStore.getStartMicros(row);
+            if (start < fromMicros || start >= toMicros) {
+                continue;
+            }
+            String id = sessionStore.getId(row);
+            if (storedIds.contains(id)) {
+                currentIds.add(id);
+            } else {
+                sessionStore.remove(row);
+                sessionIndex.remove(id);
+                sessionStatisticsStale = true;
+                changed = true;
+            }
+        }
+        for (int row = 0; row < stored.size(); row++) {
+            if (!currentIds.contains(stored.getId(row))) {
+                int added = sessionStore.appendFrom(stored, row);
+                indexSession(added);
+                statistics.recordSession(stored.getDurationMinutes(row),
+                        stored.getSessionType(row), stored.getProjectName(row));
+                changed = true;
+            }
+        }
+        return changed;
     }
 
-    private void loadStudySessions() {
-        try {
-            JSONObject data = localStorage.readJsonFile(SESSIONS_FILE);
-            JSONArray jsonArray = data.optJSONArray("sessions");
-            if (jsonArray == null) {
-                // Try reading as array directly (legacy format)
-                jsonArray = new JSONArray(data.toString());
-                if (jsonArray.length() == 0) {
-                    return;
+    /**
+     * Make sure every session starting at or after {@code fromMicros} is in the store
+     */
+    private void ensureSessionsLoadedFrom(long fromMicros) {
+        if (fromMicros >= sessionsLoadedFrom) {
+            return;
+        }
+        SessionColumnStore merged = new SessionColumnStore();
+        storage.querySessions(fromMicros, sessionsLoadedFrom, merged);
+        // Sessions added before the loaded range are in memory already, and now on disk too
+        Set<String> addedEarlier = new HashSet<>();
+        for (int row = 0; row < sessionStore.size(); row++) {
+            long start = sessionStore.getStartMicros(row);
+            if (start >= fromMicros && start < sessionsLoadedFrom) {
+                addedEarlier.add(sessionStore.getId(row));
+            }
+        }
+        if (!addedEarlier.isEmpty()) {
+            SessionColumnStore loaded = merged;
+            merged = new SessionColumnStore();
+            for (int row = 0; row < loaded.size(); row++) {
+                if (!addedEarlier.contains(loaded.getId(row))) {
+                    merged.appendFrom(loaded, row);
                 }
             }
+        }
+        int olderRows = merged.size();
+        for (int row = 0; row < sessionStore.size(); row++) {
+            merged.appendFrom(sessionStore, row);
+        }
+        sessionStore = merged;
+        sessionsLoadedFrom = fromMicros;
+        for (int row = 0; row < olderRows; row++) {
+            indexSession(row);
+        }
+    }
 
-            studySessions.clear();
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject jsonSession = jsonArray.getJSONObject(i);
-                StudySession session = new StudySession();
-                session.setId(jsonSession.getString("id"));
-                session.setStartTime(LocalDateTime.parse(jsonSession.getString("startTime")));
-                session.setEndTime(LocalDateTime.parse(jsonSession.getString("endTime")));
-                session.setSubject(jsonSession.optString("subject", ""));
-                session.setNotes(jsonSession.optString("notes", ""));
-
-                // Handle session type and project name (new fields)
-                String sessionTypeStr = jsonSession.optString("sessionType", "WORK");
-                try {
-                    session.setSessionType(SessionType.valueOf(sessionTypeStr));
-                } catch (IllegalArgumentException e) {
-                    session.setSessionType(SessionType.WORK); // Default fallback
-                }
+    private void ensureAllSessionsLoaded() {
+        ensureSessionsLoadedFrom(Long.MIN_VALUE);
+    }
+
+    /**
+     * Load older sessions before taking the read lock; a read lock cannot be upgraded
+     */
+    private void loadSessionsFrom(long fromMicros) {
+        if (fromMicros < sessionsLoadedFrom) {
+            write(() -> ensureSessionsLoadedFrom(fromMicros));
+        }
+    }
 
-                session.setProjectName(jsonSession.optString("projectName", ""));
+    private <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-                studySessions.add(session);
-            }
-        } catch (Exception e) {
-            System.err.println("Error loading study sessions: " + e.getMessage());
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
+    private void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
     private void saveStudySessions() {
-        JSONArray jsonArray = new JSONArray();
-        for (StudySession session : studySessions) {
-            JSONObject jsonSession = new JSONObject();
-            jsonSession.put("id", session.getId());
-            jsonSession.put("startTime", session.getStartTime().toString());
-            jsonSession.put("endTime", session.getEndTime().toString());
-            jsonSession.put("subject", session.getSubject());
-            jsonSession.put("notes", session.getNotes());
+        storage.saveSessions(sessionStore);
+    }
 
-            // Save new fields for session type and project name
-            if (session.getSessionType() != null) {
-                jsonSession.put("sessionType", session.getSessionType().toString());
+    public void addTask(Task task) {
+        write(() -> {
+            tasks.add(task);
+            indexTask(task);
+            trackTaskStatistics(task);
+            storage.saveTask(task, tasks);
+            changeLog.recordTask(task.getId(), false);
+        });
+    }
+
+    public void removeTask(Task task) {
+        write(() -> {
+            tasks.remove(task);
+            taskIndex.remove(task);
+            taskSortIndex.remove(task);
+            if (tasksInStatistics.remove(task)) {
+                taskStatisticsStale = true;
             }
-            if (session.getProjectName() != null) {
-                jsonSession.put("projectName", session.getProjectName());
+            storage.deleteTask(task, tasks);
+            changeLog.recordTask(task.getId(), true);
+        });
+    }
+
+    public void updateTask(Task task) {
+        write(() -> {
+            indexTask(task);
+            trackTaskStatistics(task);
+            // Saving an unchanged task writes nothing, and peers have nothing to pull
+            if (storage.saveTask(task, tasks)) {
+                changeLog.recordTask(task.getId(), false);
             }
+        });
+    }
 
-            jsonArray.put(jsonSession);
+    /**
+     * Apply a change to the task with the given id and save it, as one step
+     * with respect to other threads
+     * @return the changed task, or null if there is no such task
+     */
+    public Task modifyTask(String id, Consumer<Task> change) {
+        return write(() -> {
+            Task task = findTask(id);
+            if (task != null) {
+                change.accept(task);
+                updateTask(task);
+            }
+            return task;
+        });
+    }
+
+    public Task getTask(String id) {
+        return read(() -> findTask(id));
+    }
+
+    private Task findTask(String id) {
+        for (Task task : tasks) {
+            if (task.getId().equals(id)) {
+                return task;
+            }
         }
+        return null;
+    }
+
+    // ==================== BATCHES ====================
 
-        JSONObject data = new JSONObject();
-        data.put("sessions", jsonArray);
-        localStorage.writeJsonFile(SESSIONS_FILE, data);
+    /**
+     * Start a unit of work; nothing changes until {@link DataBatch#apply()}
+     */
+    public DataBatch batch() {
+        return new DataBatch(this);
     }
 
-    public void addTask(Task task) {
-        tasks.add(task);
-        saveTasks();
+    void applyBatch(DataBatch batch) {
+        if (batch.hasSessionOperations()) {
+            loadSessionsFrom(Long.MIN_VALUE); // Removals and duplicate checks need every session
+        }
+        write(() -> {
+            validateBatch(batch);
+
+            Map<String, Task> savedTasks = new LinkedHashMap<>();
+            Set<String> deletedTasks = new LinkedHashSet<>();
+            Map<String, Long> addedSessions = new LinkedHashMap<>();
+            Map<String, Long> removedSessions = new LinkedHashMap<>();
+            List<Integer> appendedRows = new ArrayList<>();
+            // Removed rows stay in the store until the end of the batch, then go in one pass
+            Map<String, Integer> sessionRows = null;
+            List<Integer> removedRows = new ArrayList<>();
+
+            for (DataBatch.Operation operation : batch.getOperations()) {
+                Task task = operation.task;
+                switch (operation.kind) {
+                    case ADD_TASK:
+                        tasks.add(task);
+                        stageTaskSave(task, savedTasks, deletedTasks);
+                        break;
+                    case UPDATE_TASK:
+                        stageTaskSave(task, savedTasks, deletedTasks);
+                        break;
+                    case REMOVE_TASK:
+                        tasks.remove(task);
+                        taskIndex.remove(task);
+                        taskSortIndex.remove(task);
+                        if (tasksInStatistics.remove(task)) {
+                            taskStatisticsStale = true;
+                        }
+                        savedTasks.remove(task.getId());
+                        deletedTasks.add(task.getId());
+                        break;
+                    case ADD_SESSION:
+                        StudySession session = operation.session;
+                        int row = sessionStore.append(session);
+                        indexSession(row);
+                        statistics.recordSession(session.getDurationMinutes(), session.getSessionType(), session.getProjectName());
+                        addedSessions.put(session.getId(), sessionStore.getStartMicros(row));
+                        appendedRows.add(row);
+                        if (sessionRows != null) {
+                            sessionRows.put(session.getId(), row);
+                        }
+                        break;
+                    case REMOVE_SESSION:
+                        if (sessionRows == null) {
+                            sessionRows = sessionRowsById(); // Once per batch, not a scan per removal
+                        }
+                        int removedRow = sessionRows.remove(operation.sessionId);
+                        removedRows.add(removedRow);
+                        sessionIndex.remove(operation.sessionId);
+                        sessionStatisticsStale = true;
+                        // A session added earlier in this batch was never written
+                        if (addedSessions.remove(operation.sessionId) == null) {
+                            removedSessions.put(operation.sessionId, sessionStore.getStartMicros(removedRow));
+                        }
+                        break;
+                }
+            }
+
+            int[] appended = remainingRows(appendedRows, removedRows);
+            if (!removedRows.isEmpty()) {
+                sessionStore.removeRows(removedRows.stream().mapToInt(Integer::intValue).sorted().toArray());
+            }
+            if (!savedTasks.isEmpty() || !deletedTasks.isEmpty()) {
+                storage.saveTaskChanges(savedTasks.values(), deletedTasks, tasks);
+            }
+            if (appended.length > 0 || !removedSessions.isEmpty()) {
+                storage.saveSessionChanges(sessionStore, appended, removedSessions);
+            }
+            changeLog.recordChanges(savedTasks.keySet(), deletedTasks, addedSessions, removedSessions);
+            if (!addedSessions.isEmpty()) {
+                scheduleStatisticsSave();
+            }
+        });
     }
 
-    public void removeTask(Task task) {
-        tasks.remove(task);
-        saveTasks();
+    /**
+     * Index an added or updated task and queue it for the batch's single task write
+     */
+    private void stageTaskSave(Task task, Map<String, Task> savedTasks, Set<String> deletedTasks) {
+        indexTask(task);
+        trackTaskStatistics(task);
+        deletedTasks.remove(task.getId());
+        savedTasks.put(task.getId(), task);
     }
 
-    public void updateTask(Task task) {
-        saveTasks();
+    private Map<String, Integer> sessionRowsById() {
+        Map<String, Integer> rows = new HashMap<>();
+        for (int row = 0; row < sessionStore.size(); row++) {
+            rows.put(sessionStore.getId(row), row);
+        }
+        return rows;
+    }
+
+    /**
+     * Rows appended by a batch that it did not remove again, renumbered for
+     * after {@code removedRows} are taken out of the store
+     */
+    private static int[] remainingRows(List<Integer> appendedRows, List<Integer> removedRows) {
+        int[] removed = removedRows.stream().mapToInt(Integer::intValue).sorted().toArray();
+        List<Integer> remaining = new ArrayList<>(appendedRows.size());
+        for (int row : appendedRows) {
+            int position = Arrays.binarySearch(removed, row);
+            if (position < 0) {
+                remaining.add(row - (-position - 1)); // Minus the removed rows before it
+            }
+        }
+        return remaining.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Check the batch against the current data, replaying its adds and removals on id sets
+     */
+    private void validateBatch(DataBatch batch) {
+        Set<String> taskIds = new HashSet<>();
+        for (Task task : tasks) {
+            taskIds.add(task.getId());
+        }
+        Set<String> sessionIds = new HashSet<>();
+        if (batch.hasSessionOperations()) {
+            for (int row = 0; row < sessionStore.size(); row++) {
+                sessionIds.add(sessionStore.getId(row));
+            }
+        }
+
+        List<String> problems = new ArrayList<>();
+        int index = 0;
+        for (DataBatch.Operation operation : batch.getOperations()) {
+            String problem = null;
+            switch (operation.kind) {
+                case ADD_TASK:
+                    if (operation.task == null || operation.task.getId() == null || operation.task.getTitle() == null) {
+                        problem = "task needs an id and a title";
+                    } else if (!taskIds.add(operation.task.getId())) {
+                        problem = "task " + operation.task.getId() + " already exists";
+                    }
+                    break;
+                case UPDATE_TASK:
+                    if (operation.task == null || !taskIds.contains(operation.task.getId())) {
+                        problem = "no such task to update";
+                    }
+                    break;
+                case REMOVE_TASK:
+                    if (operation.task == null || !taskIds.remove(operation.task.getId())) {
+                        problem = "no such task to remove";
+                    }
+                    break;
+                case ADD_SESSION:
+                    StudySession session = operation.session;
+                    if (session == null || session.getId() == null || session.getStartTime() == null) {
+                        problem = "session needs an id and a start time";
+                    } else if (session.getEndTime() != null && session.getEndTime().isBefore(session.getStartTime())) {
+                        problem = "session " + session.getId() + " ends before it starts";
+                    } else if (!sessionIds.add(session.getId())) {
+                        problem = "session " + session.getId() + " already exists";
+                    }
+                    break;
+                case REMOVE_SESSION:
+                    if (!sessionIds.remove(operation.sessionId)) {
+                        problem = "no such session to remove: " + operation.sessionId;
+                    }
+                    break;
+            }
+            if (problem != null) {
+                problems.add("#" + index + ": " + problem);
+            }
+            index++;
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException("Invalid batch, nothing applied: " + String.join("; ", problems));
+        }
     }
 
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks);
+        return read(() -> new ArrayList<>(tasks));
+    }
+
+    /**
+     * All tasks in the given order, read from the maintained sort index
+     */
+    public List<Task> getTasksSorted(TaskSortOrder order) {
+        return read(() -> taskSortIndex.sorted(order));
     }
 
     public void addStudySession(StudySession session) {
-        studySessions.add(session);
-        saveStudySessions();
+        write(() -> {
+            int row = sessionStore.append(session);
+            indexSession(row);
+            statistics.recordSession(session.getDurationMinutes(), session.getSessionType(), session.getProjectName());
+            storage.appendSession(sessionStore, row);
+            changeLog.recordSession(session.getId(), sessionStore.getStartMicros(row), false);
+            scheduleStatisticsSave();
+        });
     }
 
     public void removeStudySession(StudySession session) {
-        studySessions.remove(session);
-        saveStudySessions();
+        removeStudySession(session.getId(), SessionColumnStore.toMicros(session.getStartTime()));
+    }
+
+    /**
+     * Remove a session by id. Without its start time the whole history has to be
+     * loaded to find it; prefer {@link #removeStudySession(String, long)}.
+     * @return true if it was found
+     */
+    public boolean removeStudySession(String id) {
+        loadSessionsFrom(Long.MIN_VALUE);
+        return write(() -> removeLoadedSession(id));
     }
 
+    /**
+     * Remove a session starting at {@code startMicros}. Only its month is read:
+     * a session older than the loaded ones is looked up and removed in storage.
+     * @return true if it was found
+     */
+    public boolean removeStudySession(String id, long startMicros) {
+        return write(() -> {
+            if (startMicros >= sessionsLoadedFrom) {
+                return removeLoadedSession(id);
+            }
+            SessionColumnStore stored = new SessionColumnStore();
+            storage.querySessions(startMicros, startMicros + 1, stored);
+            if (stored.indexOf(id) < 0) {
+                return false;
+            }
+            sessionStatisticsStale = true;
+            storage.removeSession(id, startMicros, sessionStore);
+            changeLog.recordSession(id, startMicros, true);
+            return true;
+        });
+    }
+
+    private boolean removeLoadedSession(String id) {
+        int row = sessionStore.indexOf(id);
+        if (row < 0) {
+            return false;
+        }
+        long startMicros = sessionStore.getStartMicros(row);
+        sessionStore.remove(row);
+        sessionIndex.remove(id);
+        sessionStatisticsStale = true;
+        storage.removeSession(id, startMicros, sessionStore);
+        changeLog.recordSession(id, startMicros, true);
+        return true;
+    }
+
+    /**
+     * All sessions as objects. Prefer the aggregate methods below, which
+     * work on the column store without materializing sessions.
+     */
     public List<StudySession> getStudySessions() {
-        return new ArrayList<>(studySessions);
+        loadSessionsFrom(Long.MIN_VALUE);
+        return read(() -> sessionStore.materializeAll());
+    }
+
+    public int getStudySessionCount() {
+        if (!sessionStatisticsStale) {
+            // The statistics count every stored session, loaded or not
+            return read(() -> (int) statistics.getSessionCount());
+        }
+        loadSessionsFrom(Long.MIN_VALUE);
+        return read(() -> sessionStore.size());
     }
 
     public int getTotalStudyTimeToday() {
         LocalDate today = LocalDate.now();
-        return studySessions.stream()
-                .filter(session -> session.getStartTime().toLocalDate().equals(today))
-                .mapToInt(StudySession::getDurationMinutes)
-                .sum();
+        loadSessionsFrom(startOfDay(today));
+        return read(() -> sessionStore.sumDuration(startOfDay(today), startOfDay(today.plusDays(1))));
     }
 
     public int getTotalStudyTimeThisWeek() {
         LocalDate today = LocalDate.now();
         LocalDate weekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
-        return studySessions.stream()
-                .filter(session -> session.getStartTime().toLocalDate().isAfter(weekStart.minusDays(1)))
-                .mapToInt(StudySession::getDurationMinutes)
-                .sum();
+        loadSessionsFrom(startOfDay(weekStart));
+        return read(() -> sessionStore.sumDuration(startOfDay(weekStart), Long.MAX_VALUE));
+    }
+
+    /**
+     * Total minutes of one session type on a given date
+     */
+    public int getStudyTimeForDate(LocalDate date, SessionType sessionType) {
+        loadSessionsFrom(startOfDay(date));
+        return read(() -> sessionStore.sumDuration(startOfDay(date), startOfDay(date.plusDays(1)), sessionType));
     }
 
     public List<StudySession> getStudySessionsForDate(LocalDate date) {
-        return studySessions.stream()
-                .filter(session -> session.getStartTime().toLocalDate().equals(date))
-                .collect(Collectors.toList());
+        loadSessionsFrom(startOfDay(date));
+        return read(() -> {
+            int[] rows = sessionStore.rowsBetween(startOfDay(date), startOfDay(date.plusDays(1)));
+            List<StudySession> sessions = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                sessions.add(sessionStore.materialize(row));
+            }
+            return sessions;
+        });
+    }
+
+    /**
+     * Streaks, hour-of-day heatmap, per-project and per-type trends and
+     * average session length over the full session history
+     */
+    public AnalyticsReport getAnalytics() {
+        loadSessionsFrom(Long.MIN_VALUE);
+        return read(() -> analyticsEngine.analyze(sessionStore, LocalDate.now()));
+    }
+
+    // ==================== PERCENTILE STATISTICS ====================
+
+    /**
+     * Session length and estimate accuracy sketches (p50/p90/p99 per project,
+     * SessionType and TaskType). Reading is O(1) in the history size.
+     * Returns a snapshot that later changes do not affect.
+     */
+    public SessionStatistics getStatistics() {
+        if (sessionStatisticsStale || taskStatisticsStale) {
+            write(() -> {
+                if (sessionStatisticsStale) {
+                    rebuildSessionStatistics();
+                    scheduleStatisticsSave();
+                }
+                if (taskStatisticsStale) {
+                    rebuildTaskStatistics();
+                }
+            });
+        }
+        return read(() -> statistics.copy());
+    }
+
+    private void loadStatistics() {
+        JSONObject data = localStorage.readJsonFile(STATISTICS_FILE);
+        statistics = SessionStatistics.fromJson(data);
+
+        // Sketches written by an older version or out of sync with the session files are rebuilt once.
+        // Only the recent sessions are loaded, so a count below them (or none at all while older
+        // sessions exist) is what shows the sketches are out of date.
+        boolean missing = statistics.getSessionCount() == 0 && storage.hasSessionsBefore(sessionsLoadedFrom);
+        if (statistics.getSessionCount() < sessionStore.size() || missing) {
+            rebuildSessionStatistics();
+            scheduleStatisticsSave();
+        }
+        rebuildTaskStatistics();
+    }
+
+    /**
+     * Write the statistics shortly, together with any further changes until then
+     * (the write lock must be held)
+     */
+    private void scheduleStatisticsSave() {
+        statisticsDirty = true;
+        if (statisticsFlushScheduled.compareAndSet(false, true)) {
+            STATISTICS_WRITER.schedule(() -> {
+                statisticsFlushScheduled.set(false);
+                flushStatistics();
+            }, STATISTICS_FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write pending statistics now. Must not be called with the write lock held:
+     * the writer thread takes the read lock while holding the flush lock.
+     */
+    private void flushStatistics() {
+        synchronized (statisticsWriteLock) {
+            JSONObject snapshot = read(() -> {
+                if (!statisticsDirty) {
+                    return null;
+                }
+                statisticsDirty = false;
+                return statistics.toJson();
+            });
+            if (snapshot != null) {
+                localStorage.writeJsonFile(STATISTICS_FILE, snapshot);
+            }
+        }
+    }
+
+    private void rebuildSessionStatistics() {
+        ensureAllSessionsLoaded();
+        statistics.clearSessions();
+        for (int row = 0; row < sessionStore.size(); row++) {
+            statistics.recordSession(sessionStore.getDurationMinutes(row),
+                    sessionStore.getSessionType(row), sessionStore.getProjectName(row));
+        }
+        sessionStatisticsStale = false;
+    }
+
+    private void rebuildTaskStatistics() {
+        statistics.clearTasks();
+        tasksInStatistics.clear();
+        for (Task task : tasks) {
+            trackTaskStatistics(task);
+        }
+        taskStatisticsStale = false;
+    }
+
+    /**
+     * Count a task once when it is completed with an estimate; un-completing it
+     * marks the sketches for a rebuild on the next read
+     */
+    private void trackTaskStatistics(Task task) {
+        boolean counts = task.isCompleted() && task.getEstimatedTime() > 0;
+        if (counts && tasksInStatistics.add(task)) {
+            statistics.recordTask(task);
+        } else if (!counts && tasksInStatistics.remove(task)) {
+            taskStatisticsStale = true;
+        }
+    }
+
+    private static long startOfDay(LocalDate date) {
+        return SessionColumnStore.toMicros(date.atStartOfDay());
     }
 
     public List<Task> getCompletedTasks() {
-        return tasks.stream()
+        return read(() -> tasks.stream()
                 .filter(Task::isCompleted)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     public List<Task> getActiveTasks() {
-        return tasks.stream()
+        return read(() -> tasks.stream()
                 .filter(task -> !task.isCompleted())
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    // ==================== SEARCH ====================
+
+    /**
+     * Tasks whose title or description match every word of the query
+     * (whole words, prefixes, or near misses)
+     */
+    public List<Task> searchTasks(String query) {
+        return read(() -> new ArrayList<>(taskIndex.search(query)));
+    }
+
+    /**
+     * Sessions whose subject, notes or project match every word of the query
+     */
+    public List<StudySession> searchSessions(String query) {
+        loadSessionsFrom(Long.MIN_VALUE);
+        return read(() -> sessionStore.materializeIds(sessionIndex.search(query)));
+    }
+
+    /**
+     * Number of sessions matching the query, without materializing them
+     */
+    public int countSessionMatches(String query) {
+        loadSessionsFrom(Long.MIN_VALUE);
+        return read(() -> sessionIndex.search(query).size());
+    }
+
+    private void indexTask(Task task) {
+        taskIndex.put(task, task.getTitle(), task.getDescription());
+        taskSortIndex.update(task);
+    }
+
+    private void indexSession(int row) {
+        sessionIndex.put(sessionStore.getId(row),
+                sessionStore.getSubject(row), sessionStore.getNotes(row), sessionStore.getProjectName(row));
+    }
+
+    private void rebuildTaskIndex() {
+        taskIndex.clear();
+        taskSortIndex.clear();
+        for (Task task : tasks) {
+            indexTask(task);
+        }
+    }
+
+    private void rebuildSessionIndex() {
+        sessionIndex.clear();
+        for (int row = 0; row < sessionStore.size(); row++) {
+            indexSession(row);
+        }
     }
 
     // ==================== EXPORT/IMPORT FUNCTIONALITY ====================
@@ -240,137 +939,134 @@ public class DataManager {
         // Prepare data map
         Map<String, JSONObject> dataMap = new HashMap<>();
 
-        // Export tasks
-        JSONObject tasksData = new JSONObject();
-        JSONArray tasksArray = new JSONArray();
-        for (Task task : tasks) {
-            JSONObject jsonTask = new JSONObject();
-            jsonTask.put("id", task.getId());
-            jsonTask.put("title", task.getTitle());
-            jsonTask.put("description", task.getDescription());
-            jsonTask.put("completed", task.isCompleted());
-            jsonTask.put("createdAt", task.getCreatedAt().toString());
-            jsonTask.put("active", task.isActive());
-            jsonTask.put("totalTimeSpent", task.getTotalTimeSpent());
-            jsonTask.put("estimatedTime", task.getEstimatedTime());
-            tasksArray.put(jsonTask);
-        }
-        tasksData.put("tasks", tasksArray);
-        dataMap.put("tasks", tasksData);
-
-        // Export sessions
-        JSONObject sessionsData = new JSONObject();
-        JSONArray sessionsArray = new JSONArray();
-        for (StudySession session : studySessions) {
-            JSONObject jsonSession = new JSONObject();
-            jsonSession.put("id", session.getId());
-            jsonSession.put("startTime", session.getStartTime().toString());
-            jsonSession.put("endTime", session.getEndTime().toString());
-            jsonSession.put("subject", session.getSubject());
-            jsonSession.put("notes", session.getNotes());
-            if (session.getSessionType() != null) {
-                jsonSession.put("sessionType", session.getSessionType().toString());
-            }
-            if (session.getProjectName() != null) {
-                jsonSession.put("projectName", session.getProjectName());
-            }
-            sessionsArray.put(jsonSession);
-        }
-        sessionsData.put("sessions", sessionsArray);
-        dataMap.put("sessions", sessionsData);
-
-        // Export theme
+        // Export percentile sketches so an import does not need to rebuild them
+        dataMap.put("statistics", getStatistics().toJson());
+
+        loadSessionsFrom(Long.MIN_VALUE);
+        read(() -> {
+            // Export tasks
+            JSONObject tasksData = new JSONObject();
+            tasksData.put("tasks", JsonRecords.tasksToJson(tasks));
+            dataMap.put("tasks", tasksData);
+
+            // Export sessions
+            JSONObject sessionsData = new JSONObject();
+            sessionsData.put("sessions", JsonRecords.sessionsToJson(sessionStore));
+            dataMap.put("sessions", sessionsData);
+            return dataMap;
+        });
+
+        // Export settings from memory, plus the theme as older versions expect it
+        dataMap.put("settings", settings.toJson());
         JSONObject themeData = new JSONObject();
-        try {
-            java.nio.file.Path themeFile = java.nio.file.Paths.get("data", THEME_FILE);
-            if (java.nio.file.Files.exists(themeFile)) {
-                String content = new String(java.nio.file.Files.readAllBytes(themeFile));
-                themeData = new JSONObject(content);
-            }
-        } catch (Exception e) {
-            System.err.println("Could not read theme data: " + e.getMessage());
-        }
+        themeData.put("darkMode", settings.isDarkMode());
         dataMap.put("theme", themeData);
 
         return localStorage.exportData(dataMap);
     }
 
+    /**
+     * Export sessions passing the filter as a CSV (or TSV) report
+     * @return Path to the exported file, or null if export failed
+     */
+    public String exportSessionsCsv(SessionFilter filter, boolean tabSeparated) {
+        // Every change is saved as it is made, so the backend holds all sessions;
+        // streaming from it keeps months the app has not loaded out of memory
+        return read(() -> {
+            try {
+                Path target = localStorage.newExportPath("sessions", tabSeparated ? "tsv" : "csv");
+                new CsvExporter(tabSeparated ? CsvExporter.TSV : CsvExporter.CSV).exportSessions(storage, filter, target);
+                return target.toAbsolutePath().toString();
+            } catch (IOException e) {
+                System.err.println("Error exporting sessions: " + e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Export tasks created in [from, to) as a CSV (or TSV) report; either bound may be null
+     * @return Path to the exported file, or null if export failed
+     */
+    public String exportTasksCsv(LocalDateTime from, LocalDateTime to, boolean tabSeparated) {
+        return read(() -> {
+            try {
+                Path target = localStorage.newExportPath("tasks", tabSeparated ? "tsv" : "csv");
+                new CsvExporter(tabSeparated ? CsvExporter.TSV : CsvExporter.CSV).exportTasks(tasks, from, to, target);
+                return target.toAbsolutePath().toString();
+            } catch (IOException e) {
+                System.err.println("Error exporting tasks: " + e.getMessage());
+                return null;
+            }
+        });
+    }
+
     /**
      * Import data from an export file
      * @param exportFilePath Path to the export file
      * @return true if import was successful
      */
     public boolean importData(String exportFilePath) {
-        try {
-            Map<String, JSONObject> importedData = localStorage.importData(exportFilePath);
-            if (importedData == null) {
-                return false;
-            }
+        return write(() -> {
+            try {
+                Map<String, JSONObject> importedData = localStorage.importData(exportFilePath);
+                if (importedData == null) {
+                    return false;
+                }
 
-            // Import tasks
-            if (importedData.containsKey("tasks")) {
-                JSONObject tasksData = importedData.get("tasks");
-                JSONArray tasksArray = tasksData.optJSONArray("tasks");
-                if (tasksArray != null) {
-                    tasks.clear();
-                    for (int i = 0; i < tasksArray.length(); i++) {
-                        JSONObject jsonTask = tasksArray.getJSONObject(i);
-                        Task task = new Task();
-                        task.setId(jsonTask.getString("id"));
-                        task.setTitle(jsonTask.getString("title"));
-                        task.setDescription(jsonTask.optString("description", ""));
-                        task.setCompleted(jsonTask.getBoolean("completed"));
-                        task.setCreatedAt(LocalDateTime.parse(jsonTask.getString("createdAt")));
-                        task.setActive(jsonTask.optBoolean("active", false));
-                        task.setTotalTimeSpent(jsonTask.optInt("totalTimeSpent", 0));
-                        task.setEstimatedTime(jsonTask.optInt("estimatedTime", 0));
-                        tasks.add(task);
+                // Import tasks
+                if (importedData.containsKey("tasks")) {
+                    JSONObject tasksData = importedData.get("tasks");
+                    JSONArray tasksArray = tasksData.optJSONArray("tasks");
+                    if (tasksArray != null) {
+                        tasks.clear();
+                        tasks.addAll(JsonRecords.tasksFromJson(tasksArray));
                     }
                 }
-            }
-
-            // Import sessions
-            if (importedData.containsKey("sessions")) {
-                JSONObject sessionsData = importedData.get("sessions");
-                JSONArray sessionsArray = sessionsData.optJSONArray("sessions");
-                if (sessionsArray != null) {
-                    studySessions.clear();
-                    for (int i = 0; i < sessionsArray.length(); i++) {
-                        JSONObject jsonSession = sessionsArray.getJSONObject(i);
-                        StudySession session = new StudySession();
-                        session.setId(jsonSession.getString("id"));
-                        session.setStartTime(LocalDateTime.parse(jsonSession.getString("startTime")));
-                        session.setEndTime(LocalDateTime.parse(jsonSession.getString("endTime")));
-                        session.setSubject(jsonSession.optString("subject", ""));
-                        session.setNotes(jsonSession.optString("notes", ""));
-
-                        String sessionTypeStr = jsonSession.optString("sessionType", "WORK");
-                        try {
-                            session.setSessionType(SessionType.valueOf(sessionTypeStr));
-                        } catch (IllegalArgumentException e) {
-                            session.setSessionType(SessionType.WORK);
-                        }
 
-                        session.setProjectName(jsonSession.optString("projectName", ""));
-                        studySessions.add(session);
+                // Import sessions
+                if (importedData.containsKey("sessions")) {
+                    JSONObject sessionsData = importedData.get("sessions");
+                    JSONArray sessionsArray = sessionsData.optJSONArray("sessions");
+                    if (sessionsArray != null) {
+                        sessionStore.clear();
+                        JsonRecords.appendSessions(sessionsArray, sessionStore);
+                        sessionsLoadedFrom = Long.MIN_VALUE;
                     }
                 }
-            }
 
-            // Import theme
-            if (importedData.containsKey("theme")) {
-                JSONObject themeData = importedData.get("theme");
-                localStorage.writeJsonFile(THEME_FILE, themeData);
-            }
+                rebuildTaskIndex();
+                rebuildSessionIndex();
 
-            // Save all imported data
-            saveData();
-            return true;
+                // Adopt the exported sketches when they match the imported sessions
+                SessionStatistics importedStatistics = importedData.containsKey("statistics")
+                        ? SessionStatistics.fromJson(importedData.get("statistics"))
+                        : null;
+                if (importedStatistics != null && importedStatistics.getSessionCount() == sessionStore.size()) {
+                    statistics = importedStatistics;
+                } else {
+                    rebuildSessionStatistics();
+                }
+                rebuildTaskStatistics();
 
-        } catch (Exception e) {
-            System.err.println("Error importing data: " + e.getMessage());
-            return false;
-        }
+                // Import settings (exports from older versions only have the theme)
+                if (importedData.containsKey("settings")) {
+                    settings.replaceAll(importedData.get("settings"));
+                } else if (importedData.containsKey("theme")) {
+                    settings.setDarkMode(importedData.get("theme").optBoolean("darkMode", false));
+                }
+
+                // Save all imported data
+                saveAll();
+                ensureAllSessionsLoaded();
+                changeLog.recordSnapshot(tasks, sessionStore);
+                return true;
+
+            } catch (Exception e) {
+                System.err.println("Error importing data: " + e.getMessage());
+                return false;
+            }
+        });
     }
 
     /**
@@ -391,11 +1087,15 @@ public class DataManager {
      * Restore data from a backup file
      */
     public boolean restoreFromBackup(String backupFilename, String targetFilename) {
-        boolean success = localStorage.restoreFromBackup(backupFilename, targetFilename);
-        if (success) {
-            loadData();
-        }
-        return success;
+        return write(() -> {
+            boolean success = localStorage.restoreFromBackup(backupFilename, targetFilename);
+            if (success) {
+                loadData();
+                ensureAllSessionsLoaded();
+                changeLog.recordSnapshot(tasks, sessionStore);
+            }
+            return success;
+        });
     }
 
     /**
@@ -409,8 +1109,32 @@ public class DataManager {
      * Clear all data (use with caution)
      */
     public void clearAllData() {
-        tasks.clear();
-        studySessions.clear();
-        localStorage.clearAllData();
+        write(() -> {
+            tasks.clear();
+            sessionStore.clear();
+            sessionsLoadedFrom = Long.MIN_VALUE;
+            statistics = new SessionStatistics();
+            tasksInStatistics.clear();
+            taskIndex.clear();
+            taskSortIndex.clear();
+            sessionIndex.clear();
+            storage.clear();
+            if (!(storage instanceof JsonStorageBackend)) {
+                // The JSON files the database was seeded from, monthly partitions included
+                new JsonStorageBackend(localStorage).clear();
+            }
+            localStorage.clearAllData();
+            changeLog.recordSnapshot(tasks, sessionStore); // Tombstones for everything
+        });
+    }
+
+    /**
+     * Save pending settings and statistics and release the storage backend
+     * (closes the database connection, if any)
+     */
+    public void close() {
+        settings.flush();
+        flushStatistics();
+        write(storage::close);
     }
 }
\ No newline at end of file
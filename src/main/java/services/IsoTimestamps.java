@@ -0,0 +1,249 @@
+package services;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fast codec for the ISO-8601 local date-times the app writes
+ * ({@code LocalDateTime.toString()}: 2025-03-14T09:26, 2025-03-14T09:26:53,
+ * 2025-03-14T09:26:53.589793). Digits are read straight from the characters
+ * and epoch days computed arithmetically, with no regex, formatter or
+ * substring. Anything else (other years, offsets, bad dates) goes through
+ * {@link LocalDateTime#parse}, so results always match the JDK.
+ *
+ * Epoch micros follow {@link SessionColumnStore}: wall-clock time read as UTC.
+ */
+public final class IsoTimestamps {
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+
+    private IsoTimestamps() {
+    }
+
+    // ==================== PARSING ====================
+
+    public static long parseMicros(CharSequence text) {
+        return parseMicros(text, 0, text.length());
+    }
+
+    /**
+     * Parse {@code text[from, to)} to epoch micros (sub-microsecond digits are dropped)
+     */
+    public static long parseMicros(CharSequence text, int from, int to) {
+        long micros = tryParseMicros(text, from, to);
+        if (micros == Long.MIN_VALUE) {
+            return SessionColumnStore.toMicros(LocalDateTime.parse(text.subSequence(from, to)));
+        }
+        return micros;
+    }
+
+    public static LocalDateTime parse(CharSequence text) {
+        int length = text.length();
+        if (tryParseMicros(text, 0, length) == Long.MIN_VALUE) {
+            return LocalDateTime.parse(text);
+        }
+        return LocalDateTime.of(digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                digits(text, 11, 2), digits(text, 14, 2),
+                length > 16 ? digits(text, 17, 2) : 0,
+                length > 20 ? fraction(text, 20, length) : 0);
+    }
+
+    /**
+     * Epoch micros of a yyyy-MM-ddTHH:mm[:ss[.fraction]] value, or Long.MIN_VALUE when it has another shape
+     */
+    private static long tryParseMicros(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (length < 16 || length == 17 || length == 18 || length == 20 || length > 29
+                || text.charAt(from + 4) != '-' || text.charAt(from + 7) != '-'
+                || text.charAt(from + 10) != 'T' || text.charAt(from + 13) != ':') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(text, from, 4);
+        int month = digits(text, from + 5, 2);
+        int day = digits(text, from + 8, 2);
+        int hour = digits(text, from + 11, 2);
+        int minute = digits(text, from + 14, 2);
+        int second = 0;
+        int nanos = 0;
+        if (length > 16) {
+            if (text.charAt(from + 16) != ':') {
+                return Long.MIN_VALUE;
+            }
+            second = digits(text, from + 17, 2);
+            if (length > 19) {
+                if (text.charAt(from + 19) != '.') {
+                    return Long.MIN_VALUE;
+                }
+                nanos = fraction(text, from + 20, to);
+            }
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || nanos < 0) {
+            return Long.MIN_VALUE;
+        }
+        long seconds = epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+        return seconds * MICROS_PER_SECOND + nanos / 1_000;
+    }
+
+    /**
+     * Decimal value of {@code count} digits, or -1 if any is not a digit
+     */
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Fractional seconds as nanos (1 to 9 digits), or -1 if malformed
+     */
+    private static int fraction(CharSequence text, int from, int to) {
+        int count = to - from;
+        if (count < 1 || count > 9) {
+            return -1;
+        }
+        int value = digits(text, from, count);
+        if (value < 0) {
+            return -1;
+        }
+        for (int i = count; i < 9; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+
+    // ==================== FORMATTING ====================
+
+    /**
+     * Same text as {@code SessionColumnStore.fromMicros(micros).toString()}
+     */
+    public static String formatMicros(long micros) {
+        long seconds = Math.floorDiv(micros, MICROS_PER_SECOND);
+        int nanos = (int) Math.floorMod(micros, MICROS_PER_SECOND) * 1_000;
+        long epochDay = Math.floorDiv(seconds, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(seconds, SECONDS_PER_DAY);
+
+        // Civil date from epoch day (proleptic Gregorian, as in LocalDate.ofEpochDay)
+        long zeroDay = epochDay + DAYS_0000_TO_1970 - 60; // Count from 0000-03-01
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long adjustCycles = (zeroDay + 1) / 146_097 - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * 146_097;
+        }
+        long yearEstimate = (400 * zeroDay + 591) / 146_097;
+        long dayOfYearEstimate = zeroDay - (365 * yearEstimate + yearEstimate / 4 - yearEstimate / 100 + yearEstimate / 400);
+        if (dayOfYearEstimate < 0) {
+            yearEstimate--;
+            dayOfYearEstimate = zeroDay - (365 * yearEstimate + yearEstimate / 4 - yearEstimate / 100 + yearEstimate / 400);
+        }
+        yearEstimate += adjust;
+        int marchDayOfYear = (int) dayOfYearEstimate;
+        int marchMonth = (marchDayOfYear * 5 + 2) / 153;
+        int month = (marchMonth + 2) % 12 + 1;
+        int day = marchDayOfYear - (marchMonth * 306 + 5) / 10 + 1;
+        long year = yearEstimate + marchMonth / 10;
+
+        if (year < 0 || year > 9999) {
+            return SessionColumnStore.fromMicros(micros).toString(); // Signed or wide years
+        }
+        return format((int) year, month, day, secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, nanos);
+    }
+
+    /**
+     * Same text as {@code dateTime.toString()}
+     */
+    public static String format(LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            return dateTime.toString();
+        }
+        return format(year, dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+                dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond(), dateTime.getNano());
+    }
+
+    private static String format(int year, int month, int day, int hour, int minute, int second, int nanos) {
+        char[] out = new char[29];
+        putDigits(out, 0, year, 4);
+        out[4] = '-';
+        putDigits(out, 5, month, 2);
+        out[7] = '-';
+        putDigits(out, 8, day, 2);
+        out[10] = 'T';
+        putDigits(out, 11, hour, 2);
+        out[13] = ':';
+        putDigits(out, 14, minute, 2);
+        int length = 16;
+
+        // Seconds and fraction only when present, in millis, micros or nanos like LocalTime.toString
+        if (second > 0 || nanos > 0) {
+            out[16] = ':';
+            putDigits(out, 17, second, 2);
+            length = 19;
+            if (nanos > 0) {
+                out[19] = '.';
+                if (nanos % 1_000_000 == 0) {
+                    putDigits(out, 20, nanos / 1_000_000, 3);
+                    length = 23;
+                } else if (nanos % 1_000 == 0) {
+                    putDigits(out, 20, nanos / 1_000, 6);
+                    length = 26;
+                } else {
+                    putDigits(out, 20, nanos, 9);
+                    length = 29;
+                }
+            }
+        }
+        return new String(out, 0, length);
+    }
+
+    private static void putDigits(char[] out, int at, int value, int count) {
+        for (int i = at + count - 1; i >= at; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // ==================== CALENDAR ====================
+
+    private static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 for a year from 0 to 9999 (as in LocalDate.toEpochDay)
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y + (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
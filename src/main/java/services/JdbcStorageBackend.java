@@ -0,0 +1,449 @@
+package services;
+
+import models.SessionType;
+import models.Task;
+import models.TaskType;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Storage backend on an embedded H2 database (studyapp.mv.db in the data directory).
+ * Sessions are indexed by start time, type and project, so date-bounded
+ * queries use the index, and every add/update/remove writes a single row
+ * instead of rewriting a whole file.
+ */
+public class JdbcStorageBackend implements StorageBackend {
+    public static final String NAME = "h2";
+
+    // AUTO_SERVER lets further processes open the same database through the first one
+    private static final String URL_OPTIONS = ";AUTO_SERVER=TRUE";
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS tasks ("
+            + " id VARCHAR(64) PRIMARY KEY,"
+            + " title VARCHAR(4096) NOT NULL,"
+            + " description CLOB,"
+            + " completed BOOLEAN NOT NULL,"
+            + " created_at TIMESTAMP(9) NOT NULL,"
+            + " task_type VARCHAR(16),"
+            + " active BOOLEAN NOT NULL,"
+            + " total_time_spent INT NOT NULL,"
+            + " estimated_time INT NOT NULL,"
+            + " seq BIGINT AUTO_INCREMENT)",
+        "CREATE TABLE IF NOT EXISTS sessions ("
+            + " id VARCHAR(64) PRIMARY KEY,"
+            + " start_micros BIGINT NOT NULL,"
+            + " end_micros BIGINT NOT NULL,"
+            + " duration_minutes INT NOT NULL,"
+            + " session_type VARCHAR(16),"
+            + " project_name VARCHAR(1024),"
+            + " subject VARCHAR(4096),"
+            + " notes CLOB,"
+            + " seq BIGINT AUTO_INCREMENT)",
+        "CREATE INDEX IF NOT EXISTS idx_sessions_start ON sessions(start_micros)",
+        "CREATE INDEX IF NOT EXISTS idx_sessions_type ON sessions(session_type, start_micros)",
+        "CREATE INDEX IF NOT EXISTS idx_sessions_project ON sessions(project_name, start_micros)",
+        // One-time markers such as "seeded"
+        "CREATE TABLE IF NOT EXISTS meta ("
+            + " name VARCHAR(64) PRIMARY KEY,"
+            + " \"VALUE\" VARCHAR(1024))"
+    };
+    private static final String SEEDED = "seeded";
+    private static final int SCAN_CHUNK_ROWS = 1000;
+
+    private static final String TASK_COLUMNS =
+        "id, title, description, completed, created_at, task_type, active, total_time_spent, estimated_time";
+    private static final String SESSION_COLUMNS =
+        "id, start_micros, end_micros, duration_minutes, session_type, project_name, subject, notes";
+
+    private final Connection connection;
+
+    private JdbcStorageBackend(Connection connection) throws SQLException {
+        this.connection = connection;
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        }
+    }
+
+    /**
+     * Open the database in a data directory (studyapp.mv.db). On first use it is
+     * seeded with the data currently held by {@code seed} (normally the JSON files);
+     * after that an empty database stays empty, as the seed is no longer updated.
+     */
+    public static JdbcStorageBackend open(Path dataDirectory, StorageBackend seed) throws SQLException {
+        String url = "jdbc:h2:" + dataDirectory.toAbsolutePath().normalize().resolve("studyapp") + URL_OPTIONS;
+        JdbcStorageBackend backend = new JdbcStorageBackend(DriverManager.getConnection(url));
+        if (seed != null && !backend.hasMarker(SEEDED)) {
+            // Databases from before the marker already hold their data
+            if (backend.isEmpty()) {
+                backend.saveTasks(seed.loadTasks());
+                SessionColumnStore sessions = new SessionColumnStore();
+                seed.loadSessions(sessions);
+                backend.saveSessions(sessions);
+            }
+            backend.setMarker(SEEDED);
+        }
+        return backend;
+    }
+
+    public static JdbcStorageBackend open(String jdbcUrl) throws SQLException {
+        return new JdbcStorageBackend(DriverManager.getConnection(jdbcUrl));
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    private boolean hasMarker(String name) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT 1 FROM meta WHERE name = ?")) {
+            select.setString(1, name);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void setMarker(String name) {
+        inTransaction(() -> {
+            try (PreparedStatement merge = connection.prepareStatement(
+                    "MERGE INTO meta (name, \"VALUE\") KEY (name) VALUES (?, ?)")) {
+                merge.setString(1, name);
+                merge.setString(2, Instant.now().toString());
+                merge.executeUpdate();
+            }
+        }, "saving marker " + name);
+    }
+
+    private boolean isEmpty() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT (SELECT COUNT(*) FROM tasks) + (SELECT COUNT(*) FROM sessions)")) {
+            return rs.next() && rs.getLong(1) == 0;
+        }
+    }
+
+    // ==================== TASKS ====================
+
+    @Override
+    public List<Task> loadTasks() {
+        List<Task> tasks = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT " + TASK_COLUMNS + " FROM tasks ORDER BY seq")) {
+            while (rs.next()) {
+                Task task = new Task();
+                task.setId(rs.getString(1));
+                task.setTitle(rs.getString(2));
+                task.setDescription(rs.getString(3));
+                task.setCompleted(rs.getBoolean(4));
+                task.setCreatedAt(rs.getObject(5, LocalDateTime.class));
+                task.setTaskType(parseTaskType(rs.getString(6)));
+                task.setActive(rs.getBoolean(7));
+                task.setTotalTimeSpent(rs.getInt(8));
+                task.setEstimatedTime(rs.getInt(9));
+                tasks.add(task);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading tasks: " + e.getMessage());
+        }
+        return tasks;
+    }
+
+    @Override
+    public void saveTasks(List<Task> tasks) {
+        inTransaction(() -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM tasks");
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO tasks (" + TASK_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (Task task : tasks) {
+                    bindTask(insert, task);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }, "saving tasks");
+    }
+
+    @Override
+    public boolean saveTask(Task task, List<Task> allTasks) {
+        inTransaction(() -> {
+            try (PreparedStatement merge = connection.prepareStatement(
+                    "MERGE INTO tasks (" + TASK_COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                bindTask(merge, task);
+                merge.executeUpdate();
+            }
+        }, "saving task");
+        return true;
+    }
+
+    @Override
+    public void deleteTask(Task task, List<Task> allTasks) {
+        inTransaction(() -> {
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM tasks WHERE id = ?")) {
+                delete.setString(1, task.getId());
+                delete.executeUpdate();
+            }
+        }, "deleting task");
+    }
+
+    @Override
+    public void saveTaskChanges(Collection<Task> saved, Collection<String> deletedIds, List<Task> allTasks) {
+        inTransaction(() -> {
+            try (PreparedStatement merge = connection.prepareStatement(
+                    "MERGE INTO tasks (" + TASK_COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (Task task : saved) {
+                    bindTask(merge, task);
+                    merge.addBatch();
+                }
+                merge.executeBatch();
+            }
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM tasks WHERE id = ?")) {
+                for (String id : deletedIds) {
+                    delete.setString(1, id);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+        }, "saving task changes");
+    }
+
+    private static void bindTask(PreparedStatement statement, Task task) throws SQLException {
+        statement.setString(1, task.getId());
+        statement.setString(2, task.getTitle());
+        statement.setString(3, task.getDescription());
+        statement.setBoolean(4, task.isCompleted());
+        // As a LocalDateTime: Timestamp.valueOf would shift times that fall in a DST gap
+        statement.setObject(5, task.getCreatedAt());
+        statement.setString(6, task.getTaskType() != null ? task.getTaskType().name() : null);
+        statement.setBoolean(7, task.isActive());
+        statement.setInt(8, task.getTotalTimeSpent());
+        statement.setInt(9, task.getEstimatedTime());
+    }
+
+    private static TaskType parseTaskType(String value) {
+        if (value == null) {
+            return TaskType.WORK;
+        }
+        try {
+            return TaskType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return TaskType.WORK;
+        }
+    }
+
+    // ==================== SESSIONS ====================
+
+    @Override
+    public void loadSessions(SessionColumnStore target) {
+        readSessions("SELECT " + SESSION_COLUMNS + " FROM sessions ORDER BY seq", null, target);
+    }
+
+    @Override
+    public void querySessions(long fromMicros, long toMicros, SessionColumnStore target) {
+        readSessions("SELECT " + SESSION_COLUMNS + " FROM sessions"
+                + " WHERE start_micros >= ? AND start_micros < ? ORDER BY start_micros",
+                new long[] {fromMicros, toMicros}, target);
+    }
+
+    private void readSessions(String sql, long[] range, SessionColumnStore target) {
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            if (range != null) {
+                query.setLong(1, range[0]);
+                query.setLong(2, range[1]);
+            }
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    target.append(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getInt(4),
+                            parseSessionType(rs.getString(5)), rs.getString(6), rs.getString(7), rs.getString(8));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading study sessions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rows are read as the result set is walked and handed over {@link #SCAN_CHUNK_ROWS} at a time
+     */
+    @Override
+    public void scanSessions(long fromMicros, long toMicros, Consumer<SessionColumnStore> chunk) {
+        try (PreparedStatement query = connection.prepareStatement("SELECT " + SESSION_COLUMNS + " FROM sessions"
+                + " WHERE start_micros >= ? AND start_micros < ? ORDER BY start_micros")) {
+            query.setLong(1, fromMicros);
+            query.setLong(2, toMicros);
+            query.setFetchSize(SCAN_CHUNK_ROWS);
+            SessionColumnStore sessions = new SessionColumnStore();
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    sessions.append(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getInt(4),
+                            parseSessionType(rs.getString(5)), rs.getString(6), rs.getString(7), rs.getString(8));
+                    if (sessions.size() == SCAN_CHUNK_ROWS) {
+                        chunk.accept(sessions);
+                        sessions.clear();
+                    }
+                }
+            }
+            if (sessions.size() > 0) {
+                chunk.accept(sessions);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading study sessions: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean hasSessionsBefore(long micros) {
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT 1 FROM sessions WHERE start_micros < ? LIMIT 1")) {
+            query.setLong(1, micros);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error querying study sessions: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void saveSessions(SessionColumnStore sessions) {
+        inTransaction(() -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM sessions");
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO sessions (" + SESSION_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int row = 0; row < sessions.size(); row++) {
+                    bindSession(insert, sessions, row);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }, "saving study sessions");
+    }
+
+    @Override
+    public void appendSession(SessionColumnStore sessions, int row) {
+        inTransaction(() -> {
+            try (PreparedStatement merge = connection.prepareStatement(
+                    "MERGE INTO sessions (" + SESSION_COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                bindSession(merge, sessions, row);
+                merge.executeUpdate();
+            }
+        }, "saving study session");
+    }
+
+    @Override
+    public void removeSession(String id, long startMicros, SessionColumnStore sessions) {
+        inTransaction(() -> {
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM sessions WHERE id = ?")) {
+                delete.setString(1, id);
+                delete.executeUpdate();
+            }
+        }, "deleting study session");
+    }
+
+    @Override
+    public void saveSessionChanges(SessionColumnStore sessions, int[] appendedRows, Map<String, Long> removed) {
+        inTransaction(() -> {
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM sessions WHERE id = ?")) {
+                for (String id : removed.keySet()) {
+                    delete.setString(1, id);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+            try (PreparedStatement merge = connection.prepareStatement(
+                    "MERGE INTO sessions (" + SESSION_COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int row : appendedRows) {
+                    bindSession(merge, sessions, row);
+                    merge.addBatch();
+                }
+                merge.executeBatch();
+            }
+        }, "saving study session changes");
+    }
+
+    private static void bindSession(PreparedStatement statement, SessionColumnStore sessions, int row)
+            throws SQLException {
+        SessionType type = sessions.getSessionType(row);
+        statement.setString(1, sessions.getId(row));
+        statement.setLong(2, sessions.getStartMicros(row));
+        statement.setLong(3, sessions.getEndMicros(row));
+        statement.setInt(4, sessions.getDurationMinutes(row));
+        statement.setString(5, type != null ? type.name() : null);
+        statement.setString(6, sessions.getProjectName(row));
+        statement.setString(7, sessions.getSubject(row));
+        statement.setString(8, sessions.getNotes(row));
+    }
+
+    private static SessionType parseSessionType(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return SessionType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return SessionType.WORK;
+        }
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    @Override
+    public void clear() {
+        inTransaction(() -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM tasks");
+                statement.execute("DELETE FROM sessions");
+            }
+        }, "clearing data");
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database: " + e.getMessage());
+        }
+    }
+
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+
+    private void inTransaction(SqlWork work, String description) {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                work.run();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error " + description + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package services;
+
+import models.SessionType;
+import models.StudySession;
+import models.Task;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON (de)serialization of tasks and sessions, shared by the JSON storage
+ * backend and the export/import functions
+ */
+public final class JsonRecords {
+    private static final long MICROS_PER_MINUTE = 60_000_000L;
+
+    /**
+     * Key of the value dictionary in a dictionary-encoded session file
+     */
+    public static final String DICTIONARY_KEY = "dictionary";
+    private static final String[] DICTIONARY_FIELDS = {"subject", "projectName"};
+
+    private JsonRecords() {
+    }
+
+    public static Task taskFromJson(JSONObject jsonTask) {
+        Task task = new Task();
+        task.setId(jsonTask.getString("id"));
+        task.setTitle(jsonTask.getString("title"));
+        String description = jsonTask.optString("description", "");
+        task.setDescription(description.isEmpty() ? "" : description); // Most tasks share the empty one
+        task.setCompleted(jsonTask.getBoolean("completed"));
+        task.setCreatedAt(IsoTimestamps.parse(jsonTask.getString("createdAt")));
+
+        // Handle time tracking properties
+        task.setActive(jsonTask.optBoolean("active", false));
+        task.setTotalTimeSpent(jsonTask.optInt("totalTimeSpent", 0));
+        task.setEstimatedTime(jsonTask.optInt("estimatedTime", 0));
+        return task;
+    }
+
+    public static JSONObject taskToJson(Task task) {
+        JSONObject jsonTask = new JSONObject();
+        jsonTask.put("id", task.getId());
+        jsonTask.put("title", task.getTitle());
+        jsonTask.put("description", task.getDescription());
+        jsonTask.put("completed", task.isCompleted());
+        jsonTask.put("createdAt", IsoTimestamps.format(task.getCreatedAt()));
+
+        // Save time tracking properties
+        jsonTask.put("active", task.isActive());
+        jsonTask.put("totalTimeSpent", task.getTotalTimeSpent());
+        jsonTask.put("estimatedTime", task.getEstimatedTime());
+        return jsonTask;
+    }
+
+    public static List<Task> tasksFromJson(JSONArray jsonArray) {
+        List<Task> tasks = new ArrayList<>(jsonArray.length());
+        for (int i = 0; i < jsonArray.length(); i++) {
+            tasks.add(taskFromJson(jsonArray.getJSONObject(i)));
+        }
+        return tasks;
+    }
+
+    public static JSONArray tasksToJson(List<Task> tasks) {
+        JSONArray jsonArray = new JSONArray();
+        for (Task task : tasks) {
+            jsonArray.put(taskToJson(task));
+        }
+        return jsonArray;
+    }
+
+    /**
+     * Parse one session record straight into the column store
+     */
+    public static void appendSession(JSONObject jsonSession, SessionColumnStore store) {
+        appendSession(jsonSession, null, store);
+    }
+
+    /**
+     * Parse one session record whose subject and project may be indexes into {@code dictionary}
+     */
+    public static void appendSession(JSONObject jsonSession, JSONArray dictionary, SessionColumnStore store) {
+        // Straight to column values, without LocalDateTime objects
+        long startMicros = IsoTimestamps.parseMicros(jsonSession.getString("startTime"));
+        long endMicros = IsoTimestamps.parseMicros(jsonSession.getString("endTime"));
+
+        // Handle session type and project name (new fields)
+        SessionType sessionType;
+        try {
+            sessionType = SessionType.valueOf(jsonSession.optString("sessionType", "WORK"));
+        } catch (IllegalArgumentException e) {
+            sessionType = SessionType.WORK; // Default fallback
+        }
+
+        store.append(
+                jsonSession.getString("id"),
+                startMicros,
+                endMicros,
+                (int) ((endMicros - startMicros) / MICROS_PER_MINUTE),
+                sessionType,
+                decodeString(jsonSession, "projectName", dictionary),
+                decodeString(jsonSession, "subject", dictionary),
+                jsonSession.optString("notes", ""));
+    }
+
+    public static void appendSessions(JSONArray jsonArray, SessionColumnStore store) {
+        appendSessions(jsonArray, null, store);
+    }
+
+    public static void appendSessions(JSONArray jsonArray, JSONArray dictionary, SessionColumnStore store) {
+        for (int i = 0; i < jsonArray.length(); i++) {
+            appendSession(jsonArray.getJSONObject(i), dictionary, store);
+        }
+    }
+
+    // ==================== DICTIONARY ENCODING ====================
+
+    /**
+     * Replace the subject and project of each session record with an index into
+     * a dictionary of their distinct values, and return that dictionary. Records
+     * written later without encoding can sit next to encoded ones in the same array.
+     */
+    public static JSONArray encodeSessions(JSONArray jsonArray) {
+        JSONArray dictionary = new JSONArray();
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject jsonSession = jsonArray.getJSONObject(i);
+            for (String field : DICTIONARY_FIELDS) {
+                Object value = jsonSession.opt(field);
+                if (value instanceof String) {
+                    Integer index = indexes.get(value);
+                    if (index == null) {
+                        index = dictionary.length();
+                        indexes.put((String) value, index);
+                        dictionary.put(value);
+                    }
+                    jsonSession.put(field, index.intValue());
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    private static String decodeString(JSONObject jsonSession, String field, JSONArray dictionary) {
+        Object value = jsonSession.opt(field);
+        if (value instanceof Number && dictionary != null) {
+            return dictionary.getString(((Number) value).intValue());
+        }
+        return jsonSession.optString(field, "");
+    }
+
+    public static JSONObject sessionToJson(SessionColumnStore store, int row) {
+        JSONObject jsonSession = new JSONObject();
+        jsonSession.put("id", store.getId(row));
+        jsonSession.put("startTime", IsoTimestamps.formatMicros(store.getStartMicros(row)));
+        jsonSession.put("endTime", IsoTimestamps.formatMicros(store.getEndMicros(row)));
+        jsonSession.put("subject", store.getSubject(row));
+        jsonSession.put("notes", store.getNotes(row));
+
+        // Save new fields for session type and project name
+        SessionType sessionType = store.getSessionType(row);
+        if (sessionType != null) {
+            jsonSession.put("sessionType", sessionType.toString());
+        }
+        String projectName = store.getProjectName(row);
+        if (projectName != null) {
+            jsonSession.put("projectName", projectName);
+        }
+        return jsonSession;
+    }
+
+    public static JSONObject sessionToJson(StudySession session) {
+        JSONObject jsonSession = new JSONObject();
+        jsonSession.put("id", session.getId());
+        jsonSession.put("startTime", IsoTimestamps.format(session.getStartTime()));
+        jsonSession.put("endTime", IsoTimestamps.format(session.getEndTime()));
+        jsonSession.put("durationMinutes", session.getDurationMinutes());
+        jsonSession.put("subject", session.getSubject());
+        jsonSession.put("notes", session.getNotes());
+        if (session.getSessionType() != null) {
+            jsonSession.put("sessionType", session.getSessionType().toString());
+        }
+        if (session.getProjectName() != null) {
+            jsonSession.put("projectName", session.getProjectName());
+        }
+        return jsonSession;
+    }
+
+    public static JSONArray sessionsToJson(SessionColumnStore store) {
+        JSONArray jsonArray = new JSONArray();
+        for (int row = 0; row < store.size(); row++) {
+            jsonArray.put(sessionToJson(store, row));
+        }
+        return jsonArray;
+    }
+}
@@ -0,0 +1,481 @@
+package services;
+
+import models.Task;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Default storage backend: JSON files in the data directory, written through
+ * {@link LocalStorage} (with backups). Tasks live in tasks.json; sessions are
+ * partitioned by month of their start time (sessions/2025-12.json, ...), so
+ * a new session rewrites only its own month and a date-bounded query parses
+ * only the months it overlaps.
+ */
+public class JsonStorageBackend implements StorageBackend {
+    public static final String NAME = "json";
+
+    private static final String TASKS_FILE = "tasks.json";
+    private static final String LEGACY_SESSIONS_FILE = "sessions.json";
+    private static final String SESSIONS_DIR = "sessions";
+
+    // -Dstudyapp.dictionaryEncoding=true stores each partition's subjects and projects once,
+    // as a dictionary, with records referring to them by index. Either format is read.
+    private static final boolean DICTIONARY_ENCODING = Boolean.getBoolean("studyapp.dictionaryEncoding");
+
+    private final LocalStorage localStorage;
+    private DataDirectoryWatcher watcher;
+    // Partitions that exist but could not be read: a full save must not take them for empty months
+    private final Set<String> unreadablePartitions = ConcurrentHashMap.newKeySet();
+
+    public JsonStorageBackend(LocalStorage localStorage) {
+        this.localStorage = localStorage;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<Task> loadTasks() {
+        try {
+            JSONArray jsonArray = readArray(TASKS_FILE, "tasks");
+            return jsonArray != null ? JsonRecords.tasksFromJson(jsonArray) : new ArrayList<>();
+        } catch (Exception e) {
+            System.err.println("Error loading tasks: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void saveTasks(List<Task> tasks) {
+        JSONObject data = new JSONObject();
+        data.put("tasks", JsonRecords.tasksToJson(tasks));
+        localStorage.writeJsonFile(TASKS_FILE, data);
+    }
+
+    /**
+     * Replaces only this task's record in the file as it is on disk now,
+     * keeping tasks written by other processes
+     */
+    @Override
+    public boolean saveTask(Task task, List<Task> allTasks) {
+        return localStorage.updateJsonFile(TASKS_FILE, data -> {
+            JSONArray jsonArray = recordsOf(data, "tasks");
+            int index = indexOfRecord(jsonArray, task.getId());
+            if (index >= 0) {
+                jsonArray.put(index, JsonRecords.taskToJson(task));
+            } else {
+                jsonArray.put(JsonRecords.taskToJson(task));
+            }
+            return data;
+        });
+    }
+
+    @Override
+    public void deleteTask(Task task, List<Task> allTasks) {
+        localStorage.updateJsonFile(TASKS_FILE, data -> {
+            JSONArray jsonArray = recordsOf(data, "tasks");
+            int index = indexOfRecord(jsonArray, task.getId());
+            if (index >= 0) {
+                jsonArray.remove(index);
+            }
+            return data;
+        });
+    }
+
+    /**
+     * One read-modify-write of the task file for the whole batch
+     */
+    @Override
+    public void saveTaskChanges(Collection<Task> saved, Collection<String> deletedIds, List<Task> allTasks) {
+        localStorage.updateJsonFile(TASKS_FILE, data -> {
+            JSONArray jsonArray = recordsOf(data, "tasks");
+            Map<String, Integer> indexById = indexRecords(jsonArray);
+            for (Task task : saved) {
+                Integer index = indexById.get(task.getId());
+                if (index != null) {
+                    jsonArray.put(index, JsonRecords.taskToJson(task));
+                } else {
+                    indexById.put(task.getId(), jsonArray.length());
+                    jsonArray.put(JsonRecords.taskToJson(task));
+                }
+            }
+            removeRecords(jsonArray, indexById, deletedIds);
+            return data;
+        });
+    }
+
+    // ==================== SESSION PARTITIONS ====================
+
+    @Override
+    public void loadSessions(SessionColumnStore target) {
+        querySessions(Long.MIN_VALUE, Long.MAX_VALUE, target);
+    }
+
+    /**
+     * Only the monthly partitions overlapping the range are parsed
+     */
+    @Override
+    public void querySessions(long fromMicros, long toMicros, SessionColumnStore target) {
+        migrateLegacySessions();
+        for (String filename : localStorage.listDataFiles(SESSIONS_DIR)) {
+            YearMonth month = partitionMonth(filename);
+            if (month == null || monthStart(month) >= toMicros || monthStart(month.plusMonths(1)) <= fromMicros) {
+                continue;
+            }
+            SessionColumnStore partition = readPartition(filename);
+            if (partition == null) {
+                continue;
+            }
+            for (int row = 0; row < partition.size(); row++) {
+                long start = partition.getStartMicros(row);
+                if (start >= fromMicros && start < toMicros) {
+                    target.appendFrom(partition, row);
+                }
+            }
+        }
+    }
+
+    /**
+     * One monthly partition at a time
+     */
+    @Override
+    public void scanSessions(long fromMicros, long toMicros, Consumer<SessionColumnStore> chunk) {
+        migrateLegacySessions();
+        for (String filename : localStorage.listDataFiles(SESSIONS_DIR)) {
+            YearMonth month = partitionMonth(filename);
+            if (month == null || monthStart(month) >= toMicros || monthStart(month.plusMonths(1)) <= fromMicros) {
+                continue;
+            }
+            SessionColumnStore partition = readPartition(filename);
+            if (partition == null) {
+                continue;
+            }
+            if (monthStart(month) >= fromMicros && monthStart(month.plusMonths(1)) <= toMicros) {
+                chunk.accept(partition);
+                continue;
+            }
+            SessionColumnStore inRange = new SessionColumnStore();
+            for (int row = 0; row < partition.size(); row++) {
+                long start = partition.getStartMicros(row);
+                if (start >= fromMicros && start < toMicros) {
+                    inRange.appendFrom(partition, row);
+                }
+            }
+            chunk.accept(inRange);
+        }
+    }
+
+    @Override
+    public boolean hasSessionsBefore(long micros) {
+        migrateLegacySessions();
+        for (String filename : localStorage.listDataFiles(SESSIONS_DIR)) {
+            YearMonth month = partitionMonth(filename);
+            if (month != null && monthStart(month) < micros) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rewrite every partition from the store and delete partitions that are now empty.
+     * Partitions that could not be read are moved into the backups instead of being
+     * overwritten or deleted, as the store does not hold their sessions.
+     */
+    @Override
+    public void saveSessions(SessionColumnStore sessions) {
+        migrateLegacySessions();
+        Map<YearMonth, JSONArray> partitions = new TreeMap<>();
+        for (int row = 0; row < sessions.size(); row++) {
+            partitions.computeIfAbsent(monthOf(sessions.getStartMicros(row)), k -> new JSONArray())
+                    .put(JsonRecords.sessionToJson(sessions, row));
+        }
+        for (String filename : localStorage.listDataFiles(SESSIONS_DIR)) {
+            YearMonth month = partitionMonth(filename);
+            if (month == null) {
+                continue;
+            }
+            if (unreadablePartitions.remove(filename)) {
+                String corruptName = localStorage.quarantineDataFile(filename);
+                System.err.println("Unreadable " + filename + " kept as " + corruptName + " in the backups");
+            } else if (!partitions.containsKey(month)) {
+                localStorage.deleteDataFile(filename);
+            }
+        }
+        for (Map.Entry<YearMonth, JSONArray> partition : partitions.entrySet()) {
+            writePartition(partitionFile(partition.getKey()), partition.getValue());
+        }
+    }
+
+    /**
+     * Rewrites only the partition of the session's month
+     */
+    @Override
+    public void appendSession(SessionColumnStore sessions, int row) {
+        migrateLegacySessions();
+        String filename = partitionFile(monthOf(sessions.getStartMicros(row)));
+        localStorage.updateJsonFile(filename, data -> {
+            recordsOf(data, "sessions").put(JsonRecords.sessionToJson(sessions, row));
+            return data;
+        });
+    }
+
+    /**
+     * Rewrites only the partition of the session's month
+     */
+    @Override
+    public void removeSession(String id, long startMicros, SessionColumnStore sessions) {
+        migrateLegacySessions();
+        String filename = partitionFile(monthOf(startMicros));
+        localStorage.updateJsonFile(filename, data -> {
+            JSONArray jsonArray = recordsOf(data, "sessions");
+            int index = indexOfRecord(jsonArray, id);
+            if (index >= 0) {
+                jsonArray.remove(index);
+            }
+            return data;
+        });
+    }
+
+    /**
+     * One read-modify-write per affected monthly partition
+     */
+    @Override
+    public void saveSessionChanges(SessionColumnStore sessions, int[] appendedRows, Map<String, Long> removed) {
+        migrateLegacySessions();
+        Map<YearMonth, List<Integer>> appendedByMonth = new TreeMap<>();
+        for (int row : appendedRows) {
+            appendedByMonth.computeIfAbsent(monthOf(sessions.getStartMicros(row)), m -> new ArrayList<>()).add(row);
+        }
+        Map<YearMonth, List<String>> removedByMonth = new TreeMap<>();
+        for (Map.Entry<String, Long> entry : removed.entrySet()) {
+            removedByMonth.computeIfAbsent(monthOf(entry.getValue()), m -> new ArrayList<>()).add(entry.getKey());
+        }
+
+        Set<YearMonth> months = new TreeSet<>(appendedByMonth.keySet());
+        months.addAll(removedByMonth.keySet());
+        for (YearMonth month : months) {
+            localStorage.updateJsonFile(partitionFile(month), data -> {
+                JSONArray jsonArray = recordsOf(data, "sessions");
+                Map<String, Integer> indexById = indexRecords(jsonArray);
+                removeRecords(jsonArray, indexById, removedByMonth.getOrDefault(month, List.of()));
+                for (int row : appendedByMonth.getOrDefault(month, List.of())) {
+                    jsonArray.put(JsonRecords.sessionToJson(sessions, row));
+                }
+                return data;
+            });
+        }
+    }
+
+    // ==================== CHANGES BY OTHER PROCESSES ====================
+
+    @Override
+    public boolean hasExternalTaskChanges() {
+        return localStorage.isModifiedExternally(TASKS_FILE);
+    }
+
+    @Override
+    public List<long[]> getExternalSessionChanges() {
+        Set<String> filenames = new TreeSet<>(Arrays.asList(localStorage.listDataFiles(SESSIONS_DIR)));
+        filenames.addAll(localStorage.getKnownFiles(SESSIONS_DIR));
+
+        List<long[]> ranges = new ArrayList<>();
+        for (String filename : filenames) {
+            YearMonth month = partitionMonth(filename);
+            if (month == null || !localStorage.isModifiedExternally(filename)) {
+                continue;
+            }
+            ranges.add(new long[] {monthStart(month), monthStart(month.plusMonths(1))});
+            if (!localStorage.dataFileExists(filename)) {
+                localStorage.markSynced(filename); // Deleted: there is nothing to read back
+            }
+        }
+        return ranges;
+    }
+
+    @Override
+    public void watchExternalChanges(Runnable onChange) {
+        try {
+            watcher = localStorage.watchDataFiles(onChange, SESSIONS_DIR);
+        } catch (IOException e) {
+            System.err.println("Could not watch the data directory: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    @Override
+    public void clear() {
+        localStorage.deleteDataFile(TASKS_FILE);
+        localStorage.deleteDataFile(LEGACY_SESSIONS_FILE);
+        for (String filename : localStorage.listDataFiles(SESSIONS_DIR)) {
+            localStorage.deleteDataFile(filename);
+        }
+    }
+
+    /**
+     * Split a single sessions.json (older versions, or restored from a backup)
+     * into monthly partitions, replacing the current ones, and move it into the backups
+     */
+    private void migrateLegacySessions() {
+        if (!localStorage.dataFileExists(LEGACY_SESSIONS_FILE)) {
+            return;
+        }
+        SessionColumnStore sessions = new SessionColumnStore();
+        try {
+            JSONArray jsonArray = readArray(LEGACY_SESSIONS_FILE, "sessions");
+            if (jsonArray != null) {
+                JsonRecords.appendSessions(jsonArray, sessions);
+            }
+        } catch (Exception e) {
+            System.err.println("Error migrating " + LEGACY_SESSIONS_FILE + ": " + e.getMessage());
+            return;
+        }
+        localStorage.archiveDataFile(LEGACY_SESSIONS_FILE);
+        saveSessions(sessions);
+    }
+
+    /**
+     * Sessions of one partition, or null if the file exists but could not be read
+     */
+    private SessionColumnStore readPartition(String filename) {
+        SessionColumnStore partition = new SessionColumnStore();
+        try {
+            JSONObject data = localStorage.readJsonFile(filename);
+            JSONArray jsonArray = data.optJSONArray("sessions");
+            if (jsonArray != null) {
+                JsonRecords.appendSessions(jsonArray, data.optJSONArray(JsonRecords.DICTIONARY_KEY), partition);
+            } else if (localStorage.dataFileExists(filename)) {
+                throw new IOException("no sessions in the file");
+            }
+        } catch (Exception e) {
+            System.err.println("Error loading study sessions from " + filename + " (left as it is): " + e.getMessage());
+            unreadablePartitions.add(filename);
+            return null;
+        }
+        unreadablePartitions.remove(filename);
+        return partition;
+    }
+
+    /**
+     * Record array of a data file's content, created if missing
+     */
+    private static JSONArray recordsOf(JSONObject data, String key) {
+        JSONArray jsonArray = data.optJSONArray(key);
+        if (jsonArray == null) {
+            jsonArray = new JSONArray();
+            data.put(key, jsonArray);
+        }
+        return jsonArray;
+    }
+
+    private static int indexOfRecord(JSONArray jsonArray, String id) {
+        for (int i = 0; i < jsonArray.length(); i++) {
+            if (id.equals(jsonArray.getJSONObject(i).optString("id"))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Map<String, Integer> indexRecords(JSONArray jsonArray) {
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < jsonArray.length(); i++) {
+            indexById.put(jsonArray.getJSONObject(i).optString("id"), i);
+        }
+        return indexById;
+    }
+
+    /**
+     * Remove the records with the given ids, from the back so earlier indexes stay valid
+     */
+    private static void removeRecords(JSONArray jsonArray, Map<String, Integer> indexById, Collection<String> ids) {
+        List<Integer> indexes = new ArrayList<>();
+        for (String id : ids) {
+            Integer index = indexById.get(id);
+            if (index != null) {
+                indexes.add(index);
+            }
+        }
+        indexes.sort(Collections.reverseOrder());
+        for (int index : indexes) {
+            jsonArray.remove(index);
+        }
+    }
+
+    private void writePartition(String filename, JSONArray jsonArray) {
+        JSONObject data = new JSONObject();
+        if (DICTIONARY_ENCODING) {
+            data.put(JsonRecords.DICTIONARY_KEY, JsonRecords.encodeSessions(jsonArray));
+        }
+        data.put("sessions", jsonArray);
+        localStorage.writeJsonFile(filename, data);
+    }
+
+    private static String partitionFile(YearMonth month) {
+        return SESSIONS_DIR + "/" + month + ".json";
+    }
+
+    /**
+     * Month of a partition file name such as "sessions/2025-12.json", or null for other files
+     */
+    private static YearMonth partitionMonth(String filename) {
+        String name = filename.substring(filename.lastIndexOf('/') + 1, filename.length() - ".json".length());
+        try {
+            return YearMonth.parse(name);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static YearMonth monthOf(long micros) {
+        return YearMonth.from(SessionColumnStore.fromMicros(micros));
+    }
+
+    private static long monthStart(YearMonth month) {
+        return SessionColumnStore.toMicros(month.atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Read the record array of a data file, or null if there is none
+     */
+    private JSONArray readArray(String filename, String key) {
+        JSONObject data = localStorage.readJsonFile(filename);
+        if (data.isEmpty()) {
+            return null;
+        }
+        JSONArray jsonArray = data.optJSONArray(key);
+        if (jsonArray == null) {
+            // Try reading as array directly (legacy format)
+            jsonArray = new JSONArray(data.toString());
+            if (jsonArray.length() == 0) {
+                return null;
+            }
+        }
+        return jsonArray;
+    }
+}
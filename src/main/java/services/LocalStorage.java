@@ -1,36 +1,115 @@
 package services;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileLock;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32C;
 
 /**
  * LocalStorage service for managing application data persistence.
  * Handles file I/O operations, backup creation, and data export/import.
+ *
+ * Several processes may share the data directory: every write holds an
+ * exclusive lock on data/.lock, replaces the file atomically (so readers
+ * never see a partial file) and bumps the "_version" number stored in it.
+ * Each instance remembers which state of a file it last read or wrote, so
+ * changes made by other processes can be detected and reloaded.
+ *
+ * Every data file and backup has a CRC32C checksum next to it (tasks.json.crc32c).
+ * A file that fails its checksum (or does not parse) is moved aside and
+ * replaced by its newest valid backup, so a corrupt file is never read as
+ * empty and then overwritten.
+ *
+ * Writes whose content is identical to the file on disk (as last read or
+ * written, compared by SHA-256) are skipped, and so are backups identical to
+ * the last backup of the same file.
  */
 public class LocalStorage {
-    private static final String DATA_DIR = "data";
-    private static final String BACKUP_DIR = "data/backups";
-    private static final String EXPORT_DIR = "data/exports";
+    private static final String DEFAULT_DATA_DIR = "data";
+
+    public static final String VERSION_KEY = "_version";
+    private static final String LOCK_FILE = ".lock";
+    private static final String MISSING = "missing";
+    private static final String CHECKSUM_EXTENSION = ".crc32c";
+
+    // File locks are held per JVM, so threads of this process queue up here first (one lock per directory)
+    private static final Map<Path, ReentrantLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final String dataRoot;
+    private final String backupRoot;
+    private final String exportRoot;
+    private final ReentrantLock processLock;
+    private final BackupRetention retention;
+
+    // State of each data file as this instance last read or wrote it
+    private final Map<String, String> knownStamps = new ConcurrentHashMap<>();
+    private final Map<String, Long> knownVersions = new ConcurrentHashMap<>();
+    private final Map<String, String> knownHashes = new ConcurrentHashMap<>();
+    // Content hash of the newest backup this instance made of each file
+    private final Map<String, String> backupHashes = new ConcurrentHashMap<>();
+    // Files merged with changes from another process that this instance has not read back yet
+    private final Set<String> unsynced = ConcurrentHashMap.newKeySet();
+
+    private interface LockedAction<T> {
+        T run() throws IOException;
+    }
+
+    public LocalStorage() {
+        this(Paths.get(DEFAULT_DATA_DIR));
+    }
+
+    /**
+     * Storage rooted at another data directory (e.g. a second replica to sync with)
+     */
+    public LocalStorage(Path dataDirectory) {
+        this.dataRoot = dataDirectory.toString();
+        this.backupRoot = dataDirectory.resolve("backups").toString();
+        this.exportRoot = dataDirectory.resolve("exports").toString();
+        this.retention = new BackupRetention(Paths.get(backupRoot), Paths.get(exportRoot));
+        this.processLock = PROCESS_LOCKS.computeIfAbsent(dataDirectory.toAbsolutePath().normalize(),
+                k -> new ReentrantLock());
+    }
 
-    private static final int MAX_BACKUPS = 10;
+    public Path getDataDirectory() {
+        return Paths.get(dataRoot);
+    }
 
     /**
      * Ensures all required directories exist
      */
     public void ensureDirectoriesExist() {
         try {
-            Files.createDirectories(Paths.get(DATA_DIR));
-            Files.createDirectories(Paths.get(BACKUP_DIR));
-            Files.createDirectories(Paths.get(EXPORT_DIR));
+            Files.createDirectories(Paths.get(dataRoot));
+            Files.createDirectories(Paths.get(backupRoot));
+            Files.createDirectories(Paths.get(exportRoot));
         } catch (IOException e) {
             System.err.println("Error creating directories: " + e.getMessage());
         }
@@ -40,99 +119,443 @@ public class LocalStorage {
      * Read JSON content from a file
      */
     public JSONObject readJsonFile(String filename) {
-        Path filePath = Paths.get(DATA_DIR, filename);
-        File file = filePath.toFile();
+        Path filePath = Paths.get(dataRoot, filename);
 
-        if (!file.exists()) {
+        // Stamp first: if the file is replaced while reading, the next check sees a change
+        String stamp = stamp(filePath);
+        if (!Files.exists(filePath)) {
+            remember(filename, stamp, 0);
             return new JSONObject();
         }
 
         try {
-            String content = new String(Files.readAllBytes(filePath));
-            if (content.trim().isEmpty()) {
-                return new JSONObject();
+            byte[] content = Files.readAllBytes(filePath);
+            JSONObject json = readVerified(filePath, content);
+            if (json == null) {
+                // Check again under the lock, as a writer may have replaced the file between
+                // reading it and its checksum; if it still fails, restore it from a backup
+                return withDataLock(() -> recover(filename));
             }
-            return new JSONObject(content);
-        } catch (Exception e) {
+            remember(filename, stamp, json.optLong(VERSION_KEY, 0), hash(content));
+            return json;
+        } catch (IOException e) {
             System.err.println("Error reading " + filename + ": " + e.getMessage());
             return new JSONObject();
         }
     }
 
     /**
-     * Write JSON content to a file
+     * Content of a data or backup file, or null if it fails its checksum or does
+     * not parse. Files from before checksums were added only have to parse.
      */
-    public void writeJsonFile(String filename, JSONObject json) {
+    private static JSONObject readVerified(Path filePath, byte[] content) throws IOException {
+        Path checksumPath = checksumPath(filePath);
+        if (Files.exists(checksumPath)) {
+            try {
+                long expected = Long.parseLong(Files.readString(checksumPath).trim(), 16);
+                if (expected != checksum(content)) {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        String text = new String(content, StandardCharsets.UTF_8);
+        if (text.trim().isEmpty()) {
+            return new JSONObject();
+        }
         try {
-            ensureDirectoriesExist();
-            Path filePath = Paths.get(DATA_DIR, filename);
+            return new JSONObject(text);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
 
-            // Create backup before overwriting
-            if (Files.exists(filePath)) {
-                createBackup(filename);
+    /**
+     * Replace a corrupt data file with its newest valid backup. The corrupt file is
+     * moved to backups/ (as e.g. tasks_corrupt_20250101_120000_000.json) either way.
+     */
+    private JSONObject recover(String filename) throws IOException {
+        Path filePath = Paths.get(dataRoot, filename);
+        String stamp = stamp(filePath);
+        if (!Files.exists(filePath)) {
+            remember(filename, stamp, 0);
+            return new JSONObject();
+        }
+        byte[] content = Files.readAllBytes(filePath);
+        JSONObject json = readVerified(filePath, content);
+        if (json != null) {
+            remember(filename, stamp, json.optLong(VERSION_KEY, 0), hash(content));
+            return json;
+        }
+
+        File[] backups = getBackupFiles(filename);
+        java.util.Arrays.sort(backups, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        String corruptName = quarantine(filename);
+        for (File backup : backups) {
+            byte[] backupContent = Files.readAllBytes(backup.toPath());
+            JSONObject restored = readVerified(backup.toPath(), backupContent);
+            if (restored != null) {
+                replace(filePath, backupContent);
+                remember(filename, stamp(filePath), restored.optLong(VERSION_KEY, 0), hash(backupContent));
+                System.err.println("Corrupt " + filename + " (kept as " + corruptName + "), restored from " + backup.getName());
+                return restored;
             }
+        }
+        System.err.println("Corrupt " + filename + " (kept as " + corruptName + ") and no valid backup to restore");
+        markSynced(filename);
+        return new JSONObject();
+    }
+
+    /**
+     * Move a corrupt data file and its checksum into the backups
+     * @return the name it was moved to
+     */
+    private String quarantine(String filename) throws IOException {
+        Path filePath = Paths.get(dataRoot, filename);
+        String timestamp = LocalDateTime.now().format(BackupRetention.TIMESTAMP);
+        Path corruptPath = Paths.get(backupRoot, filename.replace(".json", "_corrupt_" + timestamp + ".json"));
+        Files.createDirectories(corruptPath.getParent());
+        Files.move(filePath, corruptPath, StandardCopyOption.REPLACE_EXISTING);
+        if (Files.exists(checksumPath(filePath))) {
+            Files.move(checksumPath(filePath), checksumPath(corruptPath), StandardCopyOption.REPLACE_EXISTING);
+        }
+        retention.backupCreated(filename.replace(".json", "_corrupt.json"), corruptPath, Files.size(corruptPath));
+        return corruptPath.getFileName().toString();
+    }
 
-            Files.write(filePath, json.toString(2).getBytes());
+    /**
+     * Write JSON content to a file
+     * @return false if the file already had this content (or writing failed)
+     */
+    public boolean writeJsonFile(String filename, JSONObject json) {
+        try {
+            return withDataLock(() -> writeLocked(filename, json));
         } catch (IOException e) {
             System.err.println("Error writing " + filename + ": " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Write string content to a file
+     * Read-modify-write a JSON file while holding the data lock, so records
+     * written by other processes in the meantime are kept
+     * @return false if the update left the file as it was (or writing failed)
      */
-    public void writeStringToFile(String filename, String content) {
+    public boolean updateJsonFile(String filename, UnaryOperator<JSONObject> update) {
         try {
-            ensureDirectoriesExist();
-            Path filePath = Paths.get(DATA_DIR, filename);
-            Files.write(filePath, content.getBytes());
+            return withDataLock(() -> {
+                boolean external = isModifiedExternally(filename);
+                JSONObject json = update.apply(readJsonFile(filename));
+                boolean written = writeLocked(filename, json);
+                if (external) {
+                    // The file now holds records this instance has not loaded
+                    unsynced.add(filename);
+                }
+                return written;
+            });
         } catch (IOException e) {
             System.err.println("Error writing " + filename + ": " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Create a backup of a file with timestamp
+     * @return false if the file already had this content and was left alone
      */
-    private void createBackup(String filename) {
+    private boolean writeLocked(String filename, JSONObject json) throws IOException {
+        ensureDirectoriesExist();
+        Path filePath = Paths.get(dataRoot, filename);
+        Files.createDirectories(filePath.getParent());
+
+        long version = 0;
+        if (Files.exists(filePath)) {
+            version = currentVersion(filename);
+            // Content identical to the file (at its current version) needs no write and no backup
+            String knownHash = knownHashes.get(filename);
+            if (knownHash != null && !isModifiedExternally(filename)) {
+                json.put(VERSION_KEY, version);
+                if (knownHash.equals(hash(json.toString(2).getBytes(StandardCharsets.UTF_8)))) {
+                    return false;
+                }
+            }
+            // Create backup before overwriting
+            createBackup(filename);
+        }
+        json.put(VERSION_KEY, version + 1);
+
+        byte[] content = json.toString(2).getBytes(StandardCharsets.UTF_8);
+        replace(filePath, content);
+        remember(filename, stamp(filePath), version + 1, hash(content));
+        return true;
+    }
+
+    /**
+     * Atomically replace a file and its checksum. The checksum goes first: a crash
+     * in between leaves a mismatch, and the file is then restored from the backup
+     * made just before.
+     */
+    private static void replace(Path filePath, byte[] content) throws IOException {
+        Path tempPath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        Path checksumPath = checksumPath(filePath);
+        Path checksumTempPath = checksumPath.resolveSibling(checksumPath.getFileName() + ".tmp");
+        Files.write(tempPath, content);
+        Files.writeString(checksumTempPath, String.format("%08x", checksum(content)));
+        Files.move(checksumTempPath, checksumPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * SHA-256 of a file's content, to recognise identical writes and backups
+     */
+    private static String hash(byte[] content) {
         try {
-            Path originalPath = Paths.get(DATA_DIR, filename);
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String backupFilename = filename.replace(".json", "_" + timestamp + ".json");
-            Path backupPath = Paths.get(BACKUP_DIR, backupFilename);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * CRC32C of a file's content (hardware-accelerated on current CPUs)
+     */
+    private static long checksum(byte[] content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return crc.getValue();
+    }
 
-            Files.copy(originalPath, backupPath);
+    /**
+     * The checksum file kept next to a data or backup file
+     */
+    static Path checksumPath(Path filePath) {
+        return filePath.resolveSibling(filePath.getFileName() + CHECKSUM_EXTENSION);
+    }
 
-            // Clean old backups
-            cleanOldBackups(filename);
+    /**
+     * Append a line (or several, separated by newlines) to a log file while holding
+     * the data lock. The text is produced inside the lock, so it can depend on what
+     * the file holds right now.
+     */
+    public void appendLine(String filename, Supplier<String> line) {
+        try {
+            withDataLock(() -> {
+                Path filePath = Paths.get(dataRoot, filename);
+                Files.createDirectories(filePath.getParent());
+                Files.write(filePath, (line.get() + "\n").getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                return null;
+            });
         } catch (IOException e) {
-            System.err.println("Error creating backup: " + e.getMessage());
+            System.err.println("Error appending to " + filename + ": " + e.getMessage());
         }
     }
 
     /**
-     * Remove old backups, keeping only the most recent MAX_BACKUPS
+     * Pass every complete line of a log file after byte {@code offset} to the consumer
+     * @return the offset after the last complete line, to continue from next time
      */
-    private void cleanOldBackups(String filename) {
+    public long readLines(String filename, long offset, Consumer<String> consumer) {
+        Path filePath = Paths.get(dataRoot, filename);
+        if (!Files.exists(filePath)) {
+            return offset;
+        }
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= offset) {
+                return offset;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - offset));
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+                // Fill the buffer
+            }
+            byte[] bytes = buffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < buffer.position(); i++) {
+                if (bytes[i] == '\n') {
+                    if (i > lineStart) {
+                        consumer.accept(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            return offset + lineStart; // A partially written last line is read next time
+        } catch (IOException e) {
+            System.err.println("Error reading " + filename + ": " + e.getMessage());
+            return offset;
+        }
+    }
+
+    /**
+     * Run several reads and writes of data files as one step with respect to
+     * other processes sharing the data directory
+     */
+    public void runLocked(Runnable action) {
         try {
-            File backupDir = new File(BACKUP_DIR);
-            File[] backupFiles = backupDir.listFiles((dir, name) ->
-                name.startsWith(filename.replace(".json", "")) && name.endsWith(".json")
-            );
-
-            if (backupFiles != null && backupFiles.length > MAX_BACKUPS) {
-                // Sort by last modified (oldest first)
-                java.util.Arrays.sort(backupFiles, (a, b) ->
-                    Long.compare(a.lastModified(), b.lastModified())
-                );
-
-                // Delete oldest backups
-                for (int i = 0; i < backupFiles.length - MAX_BACKUPS; i++) {
-                    backupFiles[i].delete();
+            withDataLock(() -> {
+                action.run();
+                return null;
+            });
+        } catch (IOException e) {
+            System.err.println("Error locking the data directory: " + e.getMessage());
+        }
+    }
+
+    private <T> T withDataLock(LockedAction<T> action) throws IOException {
+        processLock.lock();
+        try {
+            if (processLock.getHoldCount() > 1) {
+                return action.run(); // Nested call, the file lock is already held
+            }
+            Files.createDirectories(Paths.get(dataRoot));
+            try (FileChannel channel = FileChannel.open(Paths.get(dataRoot, LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    return action.run();
+                } finally {
+                    lock.release();
                 }
             }
-        } catch (Exception e) {
-            System.err.println("Error cleaning backups: " + e.getMessage());
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    // ==================== CHANGE DETECTION ====================
+
+    /**
+     * Whether the file changed since this instance last read or wrote it.
+     * Files it has never seen count as changed if they exist.
+     */
+    public boolean isModifiedExternally(String filename) {
+        if (unsynced.contains(filename)) {
+            return true;
+        }
+        String known = knownStamps.get(filename);
+        String current = stamp(Paths.get(dataRoot, filename));
+        return known != null ? !known.equals(current) : !MISSING.equals(current);
+    }
+
+    /**
+     * Accept the current state of a file as seen (e.g. a deleted file that has nothing to read)
+     */
+    public void markSynced(String filename) {
+        remember(filename, stamp(Paths.get(dataRoot, filename)), 0);
+    }
+
+    /**
+     * Data files in a subdirectory this instance has read or written, including deleted ones
+     */
+    public List<String> getKnownFiles(String directory) {
+        List<String> names = new ArrayList<>();
+        for (String filename : knownStamps.keySet()) {
+            if (filename.startsWith(directory + "/")) {
+                names.add(filename);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Start a background thread that calls {@code onChange} whenever another
+     * process changes a JSON file in the data directory or the given subdirectories
+     */
+    public DataDirectoryWatcher watchDataFiles(Runnable onChange, String... subdirectories) throws IOException {
+        ensureDirectoriesExist();
+        List<Path> directories = new ArrayList<>();
+        directories.add(Paths.get(dataRoot));
+        for (String subdirectory : subdirectories) {
+            Path directory = Paths.get(dataRoot, subdirectory);
+            Files.createDirectories(directory);
+            directories.add(directory);
+        }
+        return new DataDirectoryWatcher(Paths.get(dataRoot), directories, this::isModifiedExternally, onChange);
+    }
+
+    private long currentVersion(String filename) {
+        Long known = knownVersions.get(filename);
+        if (known != null && !isModifiedExternally(filename)) {
+            return known;
+        }
+        return readJsonFile(filename).optLong(VERSION_KEY, 0);
+    }
+
+    private void remember(String filename, String stamp, long version) {
+        remember(filename, stamp, version, null);
+    }
+
+    private void remember(String filename, String stamp, long version, String hash) {
+        knownStamps.put(filename, stamp);
+        knownVersions.put(filename, version);
+        if (hash != null) {
+            knownHashes.put(filename, hash);
+        } else {
+            knownHashes.remove(filename);
+        }
+        unsynced.remove(filename);
+    }
+
+    /**
+     * Identity of a file's current content: files are replaced by atomic moves,
+     * so a new file key (inode) or modification time means a new version
+     */
+    private static String stamp(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.fileKey() + "|" + attributes.lastModifiedTime().toMillis() + "|" + attributes.size();
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    /**
+     * Write string content to a file
+     */
+    public void writeStringToFile(String filename, String content) {
+        try {
+            ensureDirectoriesExist();
+            Path filePath = Paths.get(dataRoot, filename);
+            Files.write(filePath, content.getBytes());
+        } catch (IOException e) {
+            System.err.println("Error writing " + filename + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Create a backup of a file with timestamp. Old backups are thinned out in
+     * the background by the retention policy.
+     */
+    private void createBackup(String filename) {
+        try {
+            Path originalPath = Paths.get(dataRoot, filename);
+            String contentHash = isModifiedExternally(filename) ? null : knownHashes.get(filename);
+            if (contentHash == null) {
+                contentHash = hash(Files.readAllBytes(originalPath));
+            }
+            if (contentHash.equals(backupHashes.get(filename))) {
+                return; // Already backed up
+            }
+            String timestamp = LocalDateTime.now().format(BackupRetention.TIMESTAMP);
+            Path backupPath = Paths.get(backupRoot, filename.replace(".json", "_" + timestamp + ".json"));
+            Files.createDirectories(backupPath.getParent());
+
+            // Several saves within one millisecond (or by several processes) get numbered names
+            for (int attempt = 2; ; attempt++) {
+                try {
+                    Files.copy(originalPath, backupPath);
+                    if (Files.exists(checksumPath(originalPath))) {
+                        Files.copy(checksumPath(originalPath), checksumPath(backupPath), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    break;
+                } catch (FileAlreadyExistsException e) {
+                    backupPath = Paths.get(backupRoot, filename.replace(".json", "_" + timestamp + "-" + attempt + ".json"));
+                }
+            }
+            backupHashes.put(filename, contentHash);
+            retention.backupCreated(filename, backupPath, Files.size(backupPath));
+        } catch (IOException e) {
+            System.err.println("Error creating backup: " + e.getMessage());
         }
     }
 
@@ -141,10 +564,7 @@ public class LocalStorage {
      */
     public String exportData(Map<String, JSONObject> dataMap) {
         try {
-            ensureDirectoriesExist();
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String exportFilename = "export_" + timestamp + ".json";
-            Path exportPath = Paths.get(EXPORT_DIR, exportFilename);
+            Path exportPath = newExportPath("export", "json");
 
             JSONObject exportData = new JSONObject();
             for (Map.Entry<String, JSONObject> entry : dataMap.entrySet()) {
@@ -165,6 +585,27 @@ public class LocalStorage {
         }
     }
 
+    /**
+     * New, empty timestamped export file, e.g. prefix "sessions" and extension
+     * "csv" give exports/sessions_20250101_120000.csv. The file is created here
+     * so two exports in the same second cannot overwrite each other; the later
+     * one gets a suffix (sessions_20250101_120000_2.csv).
+     */
+    public Path newExportPath(String prefix, String extension) throws IOException {
+        ensureDirectoriesExist();
+        String name = prefix + "_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        for (int attempt = 1; ; attempt++) {
+            Path exportPath = Paths.get(exportRoot, (attempt == 1 ? name : name + "_" + attempt) + "." + extension);
+            try {
+                Files.createFile(exportPath);
+            } catch (FileAlreadyExistsException e) {
+                continue;
+            }
+            retention.exportCreated(exportPath); // Counted against the quota once written
+            return exportPath;
+        }
+    }
+
     /**
      * Import data from an export file
      */
@@ -193,11 +634,13 @@ public class LocalStorage {
      * Get all export files
      */
     public File[] getExportFiles() {
-        File exportDir = new File(EXPORT_DIR);
+        File exportDir = new File(exportRoot);
         if (!exportDir.exists()) {
             return new File[0];
         }
-        File[] files = exportDir.listFiles((dir, name) -> name.endsWith(".json"));
+        File[] files = exportDir.listFiles((dir, name) ->
+            name.endsWith(".json") || name.endsWith(".csv") || name.endsWith(".tsv")
+        );
         return files != null ? files : new File[0];
     }
 
@@ -205,11 +648,13 @@ public class LocalStorage {
      * Get all backup files for a specific data file
      */
     public File[] getBackupFiles(String filename) {
-        File backupDir = new File(BACKUP_DIR);
+        // Files in a data subdirectory are backed up to the same subdirectory of backups/
+        Path basePath = Paths.get(backupRoot, filename);
+        File backupDir = basePath.getParent().toFile();
         if (!backupDir.exists()) {
             return new File[0];
         }
-        String prefix = filename.replace(".json", "");
+        String prefix = basePath.getFileName().toString().replace(".json", "");
         File[] files = backupDir.listFiles((dir, name) ->
             name.startsWith(prefix) && name.endsWith(".json")
         );
@@ -221,8 +666,8 @@ public class LocalStorage {
      */
     public boolean restoreFromBackup(String backupFilename, String targetFilename) {
         try {
-            Path backupPath = Paths.get(BACKUP_DIR, backupFilename);
-            Path targetPath = Paths.get(DATA_DIR, targetFilename);
+            Path backupPath = Paths.get(backupRoot, backupFilename);
+            Path targetPath = Paths.get(dataRoot, targetFilename);
 
             if (!Files.exists(backupPath)) {
                 return false;
@@ -234,6 +679,11 @@ public class LocalStorage {
             }
 
             Files.copy(backupPath, targetPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            if (Files.exists(checksumPath(backupPath))) {
+                Files.copy(checksumPath(backupPath), checksumPath(targetPath), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(checksumPath(targetPath));
+            }
             return true;
         } catch (IOException e) {
             System.err.println("Error restoring from backup: " + e.getMessage());
@@ -241,13 +691,75 @@ public class LocalStorage {
         }
     }
 
+    /**
+     * Names of the JSON files in a data subdirectory, relative to the data
+     * directory (e.g. "sessions/2025-12.json"), in name order
+     */
+    public String[] listDataFiles(String directory) {
+        File[] files = Paths.get(dataRoot, directory).toFile().listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return new String[0];
+        }
+        String[] names = new String[files.length];
+        for (int i = 0; i < files.length; i++) {
+            names[i] = directory + "/" + files[i].getName();
+        }
+        java.util.Arrays.sort(names);
+        return names;
+    }
+
+    public boolean dataFileExists(String filename) {
+        return Files.exists(Paths.get(dataRoot, filename));
+    }
+
+    /**
+     * Move a data file into the backups (e.g. after migrating it to another layout)
+     */
+    public void archiveDataFile(String filename) {
+        if (dataFileExists(filename)) {
+            createBackup(filename);
+            deleteDataFile(filename);
+        }
+    }
+
+    /**
+     * Move a data file that cannot be used into the backups, as with a corrupt
+     * file that fails its checksum, so it is kept out of the way of later writes
+     * @return the name it was moved to, or null if there was no such file
+     */
+    public String quarantineDataFile(String filename) {
+        try {
+            String corruptName = withDataLock(() -> dataFileExists(filename) ? quarantine(filename) : null);
+            markSynced(filename);
+            return corruptName;
+        } catch (IOException e) {
+            System.err.println("Error moving " + filename + " into the backups: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Delete a single data file (backups are kept)
+     */
+    public void deleteDataFile(String filename) {
+        try {
+            withDataLock(() -> {
+                Files.deleteIfExists(checksumPath(Paths.get(dataRoot, filename)));
+                return Files.deleteIfExists(Paths.get(dataRoot, filename));
+            });
+            markSynced(filename);
+        } catch (IOException e) {
+            System.err.println("Error deleting " + filename + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Clear all data (use with caution)
      */
     public void clearAllData() {
         try {
-            File dataDir = new File(DATA_DIR);
-            File[] files = dataDir.listFiles((dir, name) -> name.endsWith(".json"));
+            File dataDir = new File(dataRoot);
+            File[] files = dataDir.listFiles((dir, name) -> name.endsWith(".json") || name.endsWith(CHECKSUM_EXTENSION));
 
             if (files != null) {
                 for (File file : files) {
@@ -266,8 +778,8 @@ public class LocalStorage {
         JSONObject stats = new JSONObject();
 
         try {
-            File dataDir = new File(DATA_DIR);
-            File[] dataFiles = dataDir.listFiles((dir, name) -> name.endsWith(".json") && !new File(BACKUP_DIR).equals(dir));
+            File dataDir = new File(dataRoot);
+            File[] dataFiles = dataDir.listFiles((dir, name) -> name.endsWith(".json") && !new File(backupRoot).equals(dir));
             long totalSize = 0;
 
             if (dataFiles != null) {
@@ -282,11 +794,11 @@ public class LocalStorage {
             stats.put("totalSizeBytes", totalSize);
             stats.put("totalSizeKB", String.format("%.2f", totalSize / 1024.0));
 
-            File backupDir = new File(BACKUP_DIR);
+            File backupDir = new File(backupRoot);
             File[] backupFiles = backupDir.listFiles();
             stats.put("backupFiles", backupFiles != null ? backupFiles.length : 0);
 
-            File exportDir = new File(EXPORT_DIR);
+            File exportDir = new File(exportRoot);
             File[] exportFiles = exportDir.listFiles();
             stats.put("exportFiles", exportFiles != null ? exportFiles.length : 0);
 
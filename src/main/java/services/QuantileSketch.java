@@ -0,0 +1,201 @@
+package services;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable streaming quantile sketch with logarithmic buckets.
+ * Every non-negative value falls into a bucket whose bounds differ by a fixed
+ * ratio, so any quantile is returned with at most {@code relativeAccuracy}
+ * relative error. Memory and read cost depend only on the value range, never
+ * on the number of samples, and two sketches merge by adding bucket counts.
+ */
+public class QuantileSketch {
+    private static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    private static final double MIN_POSITIVE = 1e-3;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private long zeroCount = 0;
+    private long count = 0;
+    private double sum = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // counts[i] holds the bucket with index (offset + i)
+    private long[] counts = new long[0];
+    private int offset = 0;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public QuantileSketch(double relativeAccuracy) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Record one sample; negative values are clamped to zero
+     */
+    public void add(double value) {
+        value = Math.max(0, value);
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        if (value < MIN_POSITIVE) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        ensureBucket(index);
+        counts[index - offset]++;
+    }
+
+    /**
+     * Add all samples of another sketch with the same accuracy
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                int index = other.offset + i;
+                ensureBucket(index);
+                counts[index - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private void ensureBucket(int index) {
+        if (counts.length == 0) {
+            counts = new long[8];
+            offset = index;
+            return;
+        }
+        if (index < offset) {
+            int grow = offset - index;
+            long[] resized = new long[counts.length + grow];
+            System.arraycopy(counts, 0, resized, grow, counts.length);
+            counts = resized;
+            offset = index;
+        } else if (index - offset >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length * 2));
+        }
+    }
+
+    /**
+     * Approximate value at quantile q (0.0 - 1.0), or 0 if the sketch is empty
+     */
+    public double getQuantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+
+        long rank = (long) (q * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                double estimate = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    public double getP50() {
+        return getQuantile(0.50);
+    }
+
+    public double getP90() {
+        return getQuantile(0.90);
+    }
+
+    public double getP99() {
+        return getQuantile(0.99);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("relativeAccuracy", relativeAccuracy);
+        json.put("count", count);
+        json.put("zeroCount", zeroCount);
+        json.put("sum", sum);
+        if (count > 0) {
+            json.put("min", min);
+            json.put("max", max);
+        }
+        json.put("offset", offset);
+        JSONArray buckets = new JSONArray();
+        for (long bucket : counts) {
+            buckets.put(bucket);
+        }
+        json.put("buckets", buckets);
+        return json;
+    }
+
+    public static QuantileSketch fromJson(JSONObject json) {
+        QuantileSketch sketch = new QuantileSketch(json.optDouble("relativeAccuracy", DEFAULT_RELATIVE_ACCURACY));
+        sketch.count = json.optLong("count", 0);
+        sketch.zeroCount = json.optLong("zeroCount", 0);
+        sketch.sum = json.optDouble("sum", 0);
+        if (sketch.count > 0) {
+            sketch.min = json.getDouble("min");
+            sketch.max = json.getDouble("max");
+        }
+        sketch.offset = json.optInt("offset", 0);
+        JSONArray buckets = json.optJSONArray("buckets");
+        if (buckets != null) {
+            sketch.counts = new long[buckets.length()];
+            for (int i = 0; i < buckets.length(); i++) {
+                sketch.counts[i] = buckets.getLong(i);
+            }
+        }
+        return sketch;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d p50=%.1f p90=%.1f p99=%.1f", count, getP50(), getP90(), getP99());
+    }
+}
@@ -0,0 +1,174 @@
+package services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index for full-text search.
+ * Documents are tokenized into lower-case words; each word maps to the set of
+ * documents containing it. The vocabulary is kept sorted so prefix queries are
+ * a range lookup, and misspelled query terms fall back to a fuzzy match over the
+ * vocabulary (never over the documents themselves).
+ *
+ * @param <D> document handle (compared by equals/hashCode)
+ */
+public class SearchIndex<D> {
+    private static final int FUZZY_MIN_TERM_LENGTH = 4;
+
+    private final NavigableMap<String, Set<D>> postings = new TreeMap<>();
+    private final Map<D, Set<String>> documentTokens = new HashMap<>();
+
+    /**
+     * Index a document, replacing any previously indexed text for it
+     */
+    public void put(D document, String... texts) {
+        remove(document);
+
+        Set<String> tokens = new HashSet<>();
+        for (String text : texts) {
+            tokens.addAll(tokenize(text));
+        }
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        documentTokens.put(document, tokens);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new HashSet<>()).add(document);
+        }
+    }
+
+    /**
+     * Remove a document from the index
+     */
+    public void remove(D document) {
+        Set<String> tokens = documentTokens.remove(document);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<D> documents = postings.get(token);
+            if (documents != null) {
+                documents.remove(document);
+                if (documents.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        documentTokens.clear();
+    }
+
+    public int size() {
+        return documentTokens.size();
+    }
+
+    /**
+     * Find documents matching every term of the query. Each term matches whole
+     * words and word prefixes; terms with no such match are retried fuzzily
+     * (one typo, two for long terms).
+     */
+    public Set<D> search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<D> result = null;
+        for (String term : terms) {
+            Set<D> matches = matchTerm(term);
+            if (result == null) {
+                result = matches;
+            } else {
+                result.retainAll(matches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private Set<D> matchTerm(String term) {
+        Set<D> matches = new LinkedHashSet<>();
+
+        // Exact word and prefix matches are one contiguous range of the sorted vocabulary
+        for (Set<D> documents : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+            matches.addAll(documents);
+        }
+
+        if (matches.isEmpty() && term.length() >= FUZZY_MIN_TERM_LENGTH) {
+            int maxDistance = term.length() >= 8 ? 2 : 1;
+            for (Map.Entry<String, Set<D>> entry : postings.entrySet()) {
+                String word = entry.getKey();
+                if (Math.abs(word.length() - term.length()) <= maxDistance
+                        && editDistance(term, word, maxDistance) <= maxDistance) {
+                    matches.addAll(entry.getValue());
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Split text into lower-case words made of letters and digits
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Levenshtein distance that gives up once it exceeds the given limit
+     */
+    private static int editDistance(String a, String b, int limit) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,354 @@
+package services;
+
+import models.SessionType;
+import models.StudySession;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column-oriented in-memory storage for study sessions.
+ * Each field lives in its own primitive array (timestamps as epoch
+ * microseconds of the local wall-clock time, session type as an ordinal,
+ * project as a dictionary id), so aggregates are tight loops over arrays
+ * and a {@link StudySession} object is only created when a row is displayed.
+ */
+public class SessionColumnStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte NO_TYPE = -1;
+    private static final int NO_PROJECT = -1;
+    private static final SessionType[] TYPES = SessionType.values();
+
+    private int size = 0;
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private long[] startMicros = new long[INITIAL_CAPACITY];
+    private long[] endMicros = new long[INITIAL_CAPACITY];
+    private int[] durationMinutes = new int[INITIAL_CAPACITY];
+    private byte[] typeOrdinals = new byte[INITIAL_CAPACITY];
+    private int[] projectIds = new int[INITIAL_CAPACITY];
+    private String[] subjects = new String[INITIAL_CAPACITY];
+    private String[] notes = new String[INITIAL_CAPACITY];
+
+    // Project dictionary: id -> name and name -> id
+    private final List<String> projectNames = new ArrayList<>();
+    private final Map<String, Integer> projectLookup = new HashMap<>();
+    // One instance per distinct subject; notes are free text, so only empty notes are shared
+    private final StringDictionary subjectDictionary = new StringDictionary();
+
+    // ==================== MUTATION ====================
+
+    /**
+     * Append a session as a new row and return its row number
+     */
+    public int append(StudySession session) {
+        long start = toMicros(session.getStartTime());
+        long end = session.getEndTime() != null
+                ? toMicros(session.getEndTime())
+                : start + session.getDurationMinutes() * 60_000_000L;
+        return append(session.getId(), start, end, session.getDurationMinutes(),
+                session.getSessionType(), session.getProjectName(), session.getSubject(), session.getNotes());
+    }
+
+    /**
+     * Append a row from raw column values
+     */
+    public int append(String id, long start, long end, int duration, SessionType type,
+                      String projectName, String subject, String note) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        ids[row] = id;
+        startMicros[row] = start;
+        endMicros[row] = end;
+        durationMinutes[row] = duration;
+        typeOrdinals[row] = type != null ? (byte) type.ordinal() : NO_TYPE;
+        projectIds[row] = projectId(projectName);
+        subjects[row] = subjectDictionary.intern(subject);
+        notes[row] = note != null && note.isEmpty() ? "" : note;
+        return row;
+    }
+
+    /**
+     * Append a copy of a row from another store
+     */
+    public int appendFrom(SessionColumnStore source, int row) {
+        return append(source.getId(row), source.getStartMicros(row), source.getEndMicros(row),
+                source.getDurationMinutes(row), source.getSessionType(row), source.getProjectName(row),
+                source.getSubject(row), source.getNotes(row));
+    }
+
+    /**
+     * Remove a row, shifting later rows down by one
+     */
+    public void remove(int row) {
+        if (row < 0 || row >= size) {
+            return;
+        }
+        int tail = size - row - 1;
+        if (tail > 0) {
+            System.arraycopy(ids, row + 1, ids, row, tail);
+            System.arraycopy(startMicros, row + 1, startMicros, row, tail);
+            System.arraycopy(endMicros, row + 1, endMicros, row, tail);
+            System.arraycopy(durationMinutes, row + 1, durationMinutes, row, tail);
+            System.arraycopy(typeOrdinals, row + 1, typeOrdinals, row, tail);
+            System.arraycopy(projectIds, row + 1, projectIds, row, tail);
+            System.arraycopy(subjects, row + 1, subjects, row, tail);
+            System.arraycopy(notes, row + 1, notes, row, tail);
+        }
+        size--;
+        ids[size] = null;
+        subjects[size] = null;
+        notes[size] = null;
+    }
+
+    /**
+     * Remove several rows (sorted ascending) in one pass, shifting the remaining rows down
+     */
+    public void removeRows(int[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        int target = rows[0];
+        int next = 0;
+        for (int row = rows[0]; row < size; row++) {
+            if (next < rows.length && rows[next] == row) {
+                next++;
+                continue;
+            }
+            ids[target] = ids[row];
+            startMicros[target] = startMicros[row];
+            endMicros[target] = endMicros[row];
+            durationMinutes[target] = durationMinutes[row];
+            typeOrdinals[target] = typeOrdinals[row];
+            projectIds[target] = projectIds[row];
+            subjects[target] = subjects[row];
+            notes[target] = notes[row];
+            target++;
+        }
+        Arrays.fill(ids, target, size, null);
+        Arrays.fill(subjects, target, size, null);
+        Arrays.fill(notes, target, size, null);
+        size = target;
+    }
+
+    /**
+     * Remove the row with the given id
+     * @return true if a row was removed
+     */
+    public boolean removeById(String id) {
+        int row = indexOf(id);
+        if (row < 0) {
+            return false;
+        }
+        remove(row);
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(ids, 0, size, null);
+        Arrays.fill(subjects, 0, size, null);
+        Arrays.fill(notes, 0, size, null);
+        size = 0;
+        projectNames.clear();
+        projectLookup.clear();
+        subjectDictionary.clear();
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        startMicros = Arrays.copyOf(startMicros, capacity);
+        endMicros = Arrays.copyOf(endMicros, capacity);
+        durationMinutes = Arrays.copyOf(durationMinutes, capacity);
+        typeOrdinals = Arrays.copyOf(typeOrdinals, capacity);
+        projectIds = Arrays.copyOf(projectIds, capacity);
+        subjects = Arrays.copyOf(subjects, capacity);
+        notes = Arrays.copyOf(notes, capacity);
+    }
+
+    private int projectId(String projectName) {
+        if (projectName == null) {
+            return NO_PROJECT;
+        }
+        Integer id = projectLookup.get(projectName);
+        if (id == null) {
+            id = projectNames.size();
+            projectNames.add(projectName);
+            projectLookup.put(projectName, id);
+        }
+        return id;
+    }
+
+    // ==================== ROW ACCESS ====================
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Row number of the session with the given id, or -1
+     */
+    public int indexOf(String id) {
+        for (int row = 0; row < size; row++) {
+            if (ids[row].equals(id)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    public String getId(int row) {
+        return ids[row];
+    }
+
+    public long getStartMicros(int row) {
+        return startMicros[row];
+    }
+
+    public long getEndMicros(int row) {
+        return endMicros[row];
+    }
+
+    public int getDurationMinutes(int row) {
+        return durationMinutes[row];
+    }
+
+    public SessionType getSessionType(int row) {
+        byte ordinal = typeOrdinals[row];
+        return ordinal == NO_TYPE ? null : TYPES[ordinal];
+    }
+
+    public int getProjectId(int row) {
+        return projectIds[row];
+    }
+
+    public String getProjectName(int row) {
+        int id = projectIds[row];
+        return id == NO_PROJECT ? null : projectNames.get(id);
+    }
+
+    public String getSubject(int row) {
+        return subjects[row];
+    }
+
+    public String getNotes(int row) {
+        return notes[row];
+    }
+
+    /**
+     * Dictionary of project names; ids returned by {@link #getProjectId(int)} index into it
+     */
+    public List<String> getProjectDictionary() {
+        return projectNames;
+    }
+
+    /**
+     * Create a StudySession object for a single row (used for display only)
+     */
+    public StudySession materialize(int row) {
+        StudySession session = new StudySession();
+        session.setId(ids[row]);
+        session.setStartTime(fromMicros(startMicros[row]));
+        session.setEndTime(fromMicros(endMicros[row]));
+        session.setDurationMinutes(durationMinutes[row]);
+        session.setSubject(subjects[row]);
+        session.setNotes(notes[row]);
+        session.setSessionType(getSessionType(row));
+        session.setProjectName(getProjectName(row));
+        return session;
+    }
+
+    public List<StudySession> materializeAll() {
+        List<StudySession> sessions = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            sessions.add(materialize(row));
+        }
+        return sessions;
+    }
+
+    /**
+     * Materialize only the rows whose id is in the given set
+     */
+    public List<StudySession> materializeIds(Set<String> wanted) {
+        List<StudySession> sessions = new ArrayList<>(wanted.size());
+        for (int row = 0; row < size && sessions.size() < wanted.size(); row++) {
+            if (wanted.contains(ids[row])) {
+                sessions.add(materialize(row));
+            }
+        }
+        return sessions;
+    }
+
+    // ==================== AGGREGATES ====================
+
+    /**
+     * Total minutes of sessions starting in [fromMicros, toMicros)
+     */
+    public int sumDuration(long fromMicros, long toMicros) {
+        int total = 0;
+        for (int row = 0; row < size; row++) {
+            long start = startMicros[row];
+            if (start >= fromMicros && start < toMicros) {
+                total += durationMinutes[row];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Total minutes of sessions of one type starting in [fromMicros, toMicros)
+     */
+    public int sumDuration(long fromMicros, long toMicros, SessionType type) {
+        byte ordinal = (byte) type.ordinal();
+        int total = 0;
+        for (int row = 0; row < size; row++) {
+            long start = startMicros[row];
+            if (typeOrdinals[row] == ordinal && start >= fromMicros && start < toMicros) {
+                total += durationMinutes[row];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Row numbers of sessions starting in [fromMicros, toMicros)
+     */
+    public int[] rowsBetween(long fromMicros, long toMicros) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            long start = startMicros[row];
+            if (start >= fromMicros && start < toMicros) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // ==================== TIME CONVERSION ====================
+
+    /**
+     * Local date-time to epoch microseconds, treating the wall-clock time as UTC
+     * so that day boundaries stay exact. Sub-microsecond precision is dropped.
+     */
+    public static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    public static LocalDateTime fromMicros(long micros) {
+        long seconds = Math.floorDiv(micros, 1_000_000L);
+        int nanos = (int) Math.floorMod(micros, 1_000_000L) * 1_000;
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,83 @@
+package services;
+
+import models.SessionType;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Criteria for selecting sessions in reports and exports.
+ * Unset criteria match everything.
+ */
+public class SessionFilter {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long fromMicros = Long.MIN_VALUE;
+    private long toMicros = Long.MAX_VALUE;
+    private final Set<SessionType> sessionTypes = EnumSet.allOf(SessionType.class);
+    private String projectName;
+
+    /**
+     * Only sessions starting in [from, to); either bound may be null
+     */
+    public SessionFilter between(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+        this.fromMicros = from != null ? SessionColumnStore.toMicros(from) : Long.MIN_VALUE;
+        this.toMicros = to != null ? SessionColumnStore.toMicros(to) : Long.MAX_VALUE;
+        return this;
+    }
+
+    public SessionFilter ofTypes(SessionType... types) {
+        sessionTypes.clear();
+        for (SessionType type : types) {
+            sessionTypes.add(type);
+        }
+        return this;
+    }
+
+    public SessionFilter forProject(String projectName) {
+        this.projectName = projectName;
+        return this;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public Set<SessionType> getSessionTypes() {
+        return sessionTypes;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public long getFromMicros() {
+        return fromMicros;
+    }
+
+    public long getToMicros() {
+        return toMicros;
+    }
+
+    /**
+     * Whether a row of the column store passes this filter
+     */
+    public boolean matches(SessionColumnStore store, int row) {
+        long start = store.getStartMicros(row);
+        if (start < fromMicros || start >= toMicros) {
+            return false;
+        }
+        SessionType type = store.getSessionType(row);
+        if (!sessionTypes.contains(type != null ? type : SessionType.WORK)) {
+            return false;
+        }
+        return projectName == null || projectName.equals(store.getProjectName(row));
+    }
+}
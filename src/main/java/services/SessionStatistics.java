@@ -0,0 +1,164 @@
+package services;
+
+import models.SessionType;
+import models.Task;
+import models.TaskType;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming percentile statistics for session lengths and task estimate accuracy.
+ * Sketches are updated as data is added and persisted with the data files,
+ * so p50/p90/p99 can be read without sorting the history.
+ *
+ * Estimate accuracy is recorded for completed tasks with an estimate, as time
+ * spent in percent of the estimate (100 = spot on, 150 = took 50% longer).
+ */
+public class SessionStatistics {
+    private static final String ALL = "all";
+
+    private final Map<String, QuantileSketch> durationByType = new TreeMap<>();
+    private final Map<String, QuantileSketch> durationByProject = new TreeMap<>();
+    private final Map<String, QuantileSketch> estimateByTaskType = new TreeMap<>();
+    private QuantileSketch durationAll = new QuantileSketch();
+    private QuantileSketch estimateAll = new QuantileSketch();
+
+    public void recordSession(int durationMinutes, SessionType sessionType, String projectName) {
+        durationAll.add(durationMinutes);
+        if (sessionType != null) {
+            durationByType.computeIfAbsent(sessionType.name(), k -> new QuantileSketch()).add(durationMinutes);
+        }
+        String project = projectName != null ? projectName : "";
+        durationByProject.computeIfAbsent(project, k -> new QuantileSketch()).add(durationMinutes);
+    }
+
+    /**
+     * Record a completed task's estimate accuracy (ignored without an estimate)
+     */
+    public void recordTask(Task task) {
+        if (!task.isCompleted() || task.getEstimatedTime() <= 0) {
+            return;
+        }
+        double percent = 100.0 * task.getTotalTimeSpent() / task.getEstimatedTime();
+        estimateAll.add(percent);
+        TaskType taskType = task.getTaskType() != null ? task.getTaskType() : TaskType.WORK;
+        estimateByTaskType.computeIfAbsent(taskType.name(), k -> new QuantileSketch()).add(percent);
+    }
+
+    public void clearSessions() {
+        durationAll = new QuantileSketch();
+        durationByType.clear();
+        durationByProject.clear();
+    }
+
+    public void clearTasks() {
+        estimateAll = new QuantileSketch();
+        estimateByTaskType.clear();
+    }
+
+    // ==================== READ ====================
+
+    public QuantileSketch getDurationSketch() {
+        return durationAll;
+    }
+
+    public QuantileSketch getDurationSketch(SessionType sessionType) {
+        return durationByType.getOrDefault(sessionType.name(), new QuantileSketch());
+    }
+
+    public QuantileSketch getDurationSketch(String projectName) {
+        return durationByProject.getOrDefault(projectName != null ? projectName : "", new QuantileSketch());
+    }
+
+    public QuantileSketch getEstimateSketch() {
+        return estimateAll;
+    }
+
+    public QuantileSketch getEstimateSketch(TaskType taskType) {
+        return estimateByTaskType.getOrDefault(taskType.name(), new QuantileSketch());
+    }
+
+    /**
+     * Number of sessions the duration sketches were built from
+     */
+    public long getSessionCount() {
+        return durationAll.getCount();
+    }
+
+    /**
+     * Fold another set of session statistics into this one (e.g. from another export)
+     */
+    public void mergeSessions(SessionStatistics other) {
+        durationAll.merge(other.durationAll);
+        mergeInto(durationByType, other.durationByType);
+        mergeInto(durationByProject, other.durationByProject);
+    }
+
+    /**
+     * Independent copy, safe to read while this one keeps changing
+     */
+    public SessionStatistics copy() {
+        SessionStatistics copy = new SessionStatistics();
+        copy.mergeSessions(this);
+        copy.estimateAll.merge(estimateAll);
+        mergeInto(copy.estimateByTaskType, estimateByTaskType);
+        return copy;
+    }
+
+    private static void mergeInto(Map<String, QuantileSketch> into, Map<String, QuantileSketch> from) {
+        for (Map.Entry<String, QuantileSketch> entry : from.entrySet()) {
+            into.computeIfAbsent(entry.getKey(), k -> new QuantileSketch()).merge(entry.getValue());
+        }
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    /**
+     * Session duration sketches as JSON. Estimate sketches are derived from
+     * the task list on load and are not persisted.
+     */
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put(ALL, durationAll.toJson());
+        json.put("bySessionType", sketchesToJson(durationByType));
+        json.put("byProject", sketchesToJson(durationByProject));
+
+        JSONObject root = new JSONObject();
+        root.put("durations", json);
+        return root;
+    }
+
+    public static SessionStatistics fromJson(JSONObject root) {
+        SessionStatistics statistics = new SessionStatistics();
+        JSONObject json = root.optJSONObject("durations");
+        if (json == null) {
+            return statistics;
+        }
+        JSONObject all = json.optJSONObject(ALL);
+        if (all != null) {
+            statistics.durationAll = QuantileSketch.fromJson(all);
+        }
+        sketchesFromJson(json.optJSONObject("bySessionType"), statistics.durationByType);
+        sketchesFromJson(json.optJSONObject("byProject"), statistics.durationByProject);
+        return statistics;
+    }
+
+    private static JSONObject sketchesToJson(Map<String, QuantileSketch> sketches) {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, QuantileSketch> entry : sketches.entrySet()) {
+            json.put(entry.getKey(), entry.getValue().toJson());
+        }
+        return json;
+    }
+
+    private static void sketchesFromJson(JSONObject json, Map<String, QuantileSketch> into) {
+        if (json == null) {
+            return;
+        }
+        for (String key : json.keySet()) {
+            into.put(key, QuantileSketch.fromJson(json.getJSONObject(key)));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package services;
+
+import models.SessionConfiguration;
+import models.SessionType;
+import org.json.JSONObject;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * User preferences (theme, reduced motion, task filter and sort, timer settings
+ * per session type), held in memory and persisted to settings.json through
+ * {@link LocalStorage}, so writes are atomic and backed up like other data.
+ *
+ * Getters never touch the disk. Changes are batched: a write is scheduled on
+ * a background thread shortly after the first change, and {@link #flush()}
+ * writes pending changes immediately (e.g. on shutdown).
+ */
+public class SettingsStore {
+    static final String SETTINGS_FILE = "settings.json";
+    private static final String LEGACY_THEME_FILE = "theme.json";
+    private static final long FLUSH_DELAY_MILLIS = 500;
+
+    private static final String DARK_MODE = "darkMode";
+    private static final String REDUCED_MOTION = "reducedMotion";
+    private static final String TASK_FILTER = "taskFilter";
+    private static final String TASK_SORT = "taskSort";
+    private static final String SESSION_TYPES = "sessionTypes";
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "settings-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LocalStorage localStorage;
+    private JSONObject settings = new JSONObject();
+    private boolean dirty = false;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final Object writeLock = new Object(); // Keeps flushes in order
+
+    public SettingsStore(LocalStorage localStorage) {
+        this.localStorage = localStorage;
+    }
+
+    /**
+     * Read settings.json, migrating the theme from theme.json the first time
+     */
+    public void load() {
+        JSONObject loaded = localStorage.readJsonFile(SETTINGS_FILE);
+        loaded.remove(LocalStorage.VERSION_KEY);
+        boolean migrated = false;
+        if (loaded.isEmpty() && localStorage.dataFileExists(LEGACY_THEME_FILE)) {
+            JSONObject theme = localStorage.readJsonFile(LEGACY_THEME_FILE);
+            loaded.put(DARK_MODE, theme.optBoolean(DARK_MODE, false));
+            migrated = true;
+        }
+        synchronized (this) {
+            settings = loaded;
+            dirty = false;
+        }
+        if (migrated) {
+            localStorage.writeJsonFile(SETTINGS_FILE, toJson());
+            localStorage.archiveDataFile(LEGACY_THEME_FILE);
+        }
+    }
+
+    // ==================== PREFERENCES ====================
+
+    public synchronized boolean isDarkMode() {
+        return settings.optBoolean(DARK_MODE, false);
+    }
+
+    public void setDarkMode(boolean darkMode) {
+        set(DARK_MODE, darkMode);
+    }
+
+    public synchronized boolean isReducedMotion() {
+        return settings.optBoolean(REDUCED_MOTION, false);
+    }
+
+    public void setReducedMotion(boolean reducedMotion) {
+        set(REDUCED_MOTION, reducedMotion);
+    }
+
+    /**
+     * Task list filter as shown in the filter box, or null if never chosen
+     */
+    public synchronized String getTaskFilter() {
+        return settings.optString(TASK_FILTER, null);
+    }
+
+    public void setTaskFilter(String filter) {
+        set(TASK_FILTER, filter);
+    }
+
+    /**
+     * Task sort order as shown in the sort box, or null if never chosen
+     */
+    public synchronized String getTaskSort() {
+        return settings.optString(TASK_SORT, null);
+    }
+
+    public void setTaskSort(String sort) {
+        set(TASK_SORT, sort);
+    }
+
+    /**
+     * Saved timer settings for a session type (defaults if none were saved).
+     * The result is a copy; pass it to {@link #setSessionConfiguration} to keep changes.
+     */
+    public synchronized SessionConfiguration getSessionConfiguration(SessionType sessionType) {
+        SessionConfiguration configuration = new SessionConfiguration(sessionType);
+        JSONObject sessionTypes = settings.optJSONObject(SESSION_TYPES);
+        JSONObject saved = sessionTypes != null ? sessionTypes.optJSONObject(sessionType.name()) : null;
+        if (saved != null) {
+            configuration.setWorkDurationMinutes(saved.optInt("workDurationMinutes", configuration.getWorkDurationMinutes()));
+            configuration.setBreakDurationMinutes(saved.optInt("breakDurationMinutes", configuration.getBreakDurationMinutes()));
+            configuration.setAutoStartBreaks(saved.optBoolean("autoStartBreaks", configuration.isAutoStartBreaks()));
+            configuration.setAutoStartWork(saved.optBoolean("autoStartWork", configuration.isAutoStartWork()));
+            configuration.setDefaultProjectName(saved.optString("defaultProjectName", configuration.getDefaultProjectName()));
+        }
+        return configuration;
+    }
+
+    public void setSessionConfiguration(SessionConfiguration configuration) {
+        JSONObject saved = new JSONObject();
+        saved.put("workDurationMinutes", configuration.getWorkDurationMinutes());
+        saved.put("breakDurationMinutes", configuration.getBreakDurationMinutes());
+        saved.put("autoStartBreaks", configuration.isAutoStartBreaks());
+        saved.put("autoStartWork", configuration.isAutoStartWork());
+        saved.put("defaultProjectName", configuration.getDefaultProjectName());
+        synchronized (this) {
+            JSONObject sessionTypes = settings.optJSONObject(SESSION_TYPES);
+            if (sessionTypes == null) {
+                sessionTypes = new JSONObject();
+                settings.put(SESSION_TYPES, sessionTypes);
+            }
+            sessionTypes.put(configuration.getSessionType().name(), saved);
+            markDirty();
+        }
+    }
+
+    // ==================== EXPORT/IMPORT ====================
+
+    /**
+     * Copy of all settings, for exports
+     */
+    public synchronized JSONObject toJson() {
+        return new JSONObject(settings.toString());
+    }
+
+    /**
+     * Replace all settings (e.g. from an import) and save them
+     */
+    public void replaceAll(JSONObject imported) {
+        JSONObject copy = new JSONObject(imported.toString());
+        copy.remove(LocalStorage.VERSION_KEY);
+        synchronized (this) {
+            settings = copy;
+            markDirty();
+        }
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    private synchronized void set(String key, Object value) {
+        Object current = settings.opt(key);
+        if (value == null ? current == null : value.equals(current)) {
+            return; // Unchanged, nothing to write
+        }
+        if (value == null) {
+            settings.remove(key);
+        } else {
+            settings.put(key, value);
+        }
+        markDirty();
+    }
+
+    private void markDirty() {
+        dirty = true;
+        if (flushScheduled.compareAndSet(false, true)) {
+            WRITER.schedule(() -> {
+                flushScheduled.set(false);
+                flush();
+            }, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write pending changes now
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            JSONObject snapshot;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                snapshot = toJson();
+                dirty = false;
+            }
+            localStorage.writeJsonFile(SETTINGS_FILE, snapshot);
+        }
+    }
+}
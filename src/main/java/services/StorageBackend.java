@@ -0,0 +1,152 @@
+package services;
+
+import models.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Persistence SPI used by {@link DataManager}.
+ * Whole-collection methods are required; the per-record methods default to
+ * rewriting the whole collection, and backends with row-level storage
+ * override them to write only the affected record.
+ */
+public interface StorageBackend {
+
+    /**
+     * Short name used in logs and for selecting the backend
+     */
+    String getName();
+
+    List<Task> loadTasks();
+
+    void saveTasks(List<Task> tasks);
+
+    /**
+     * Persist a task that was added or changed
+     * @return false if the stored task already matched and nothing was written
+     */
+    default boolean saveTask(Task task, List<Task> allTasks) {
+        saveTasks(allTasks);
+        return true;
+    }
+
+    /**
+     * Persist the removal of a task ({@code allTasks} no longer contains it)
+     */
+    default void deleteTask(Task task, List<Task> allTasks) {
+        saveTasks(allTasks);
+    }
+
+    /**
+     * Persist several added or changed tasks and removed task ids with one write
+     */
+    default void saveTaskChanges(Collection<Task> saved, Collection<String> deletedIds, List<Task> allTasks) {
+        saveTasks(allTasks);
+    }
+
+    /**
+     * Load the full session history into the store
+     */
+    void loadSessions(SessionColumnStore target);
+
+    /**
+     * Load sessions starting in [fromMicros, toMicros) into the store
+     */
+    void querySessions(long fromMicros, long toMicros, SessionColumnStore target);
+
+    /**
+     * Pass the sessions starting in [fromMicros, toMicros) to {@code chunk} a
+     * part at a time, so a long history can be gone through without holding
+     * it in memory. A store passed to {@code chunk} is only valid during the call.
+     */
+    default void scanSessions(long fromMicros, long toMicros, Consumer<SessionColumnStore> chunk) {
+        SessionColumnStore sessions = new SessionColumnStore();
+        querySessions(fromMicros, toMicros, sessions);
+        chunk.accept(sessions);
+    }
+
+    /**
+     * Whether any stored session starts before the given time
+     */
+    default boolean hasSessionsBefore(long micros) {
+        SessionColumnStore older = new SessionColumnStore();
+        querySessions(Long.MIN_VALUE, micros, older);
+        return older.size() > 0;
+    }
+
+    void saveSessions(SessionColumnStore sessions);
+
+    /**
+     * Persist the session at {@code row}, which was just appended to the store
+     */
+    default void appendSession(SessionColumnStore sessions, int row) {
+        saveSessions(sessions);
+    }
+
+    /**
+     * Persist the removal of a session ({@code sessions} no longer contains it)
+     */
+    default void removeSession(String id, long startMicros, SessionColumnStore sessions) {
+        saveSessions(sessions);
+    }
+
+    /**
+     * Persist several appended rows and removed sessions (id to start time)
+     * with one write per affected file
+     */
+    default void saveSessionChanges(SessionColumnStore sessions, int[] appendedRows, Map<String, Long> removed) {
+        saveSessions(sessions);
+    }
+
+    // ==================== SHARED STORES ====================
+
+    /**
+     * Whether another process changed the stored tasks since they were last read or written here
+     */
+    default boolean hasExternalTaskChanges() {
+        return false;
+    }
+
+    /**
+     * Time ranges [fromMicros, toMicros) whose sessions another process changed
+     * since they were last read or written here
+     */
+    default List<long[]> getExternalSessionChanges() {
+        return new ArrayList<>();
+    }
+
+    /**
+     * Call {@code onChange} (from a background thread) whenever another process
+     * changes the store; stopped by {@link #close()}
+     */
+    default void watchExternalChanges(Runnable onChange) {
+    }
+
+    /**
+     * Delete all stored tasks and sessions
+     */
+    void clear();
+
+    default void close() {
+    }
+
+    /**
+     * Backend selected with -Dstudyapp.storage (json, the default, or h2)
+     */
+    static StorageBackend create(LocalStorage localStorage) {
+        String name = System.getProperty("studyapp.storage", JsonStorageBackend.NAME);
+        StorageBackend json = new JsonStorageBackend(localStorage);
+        if (JdbcStorageBackend.NAME.equalsIgnoreCase(name)) {
+            try {
+                return JdbcStorageBackend.open(localStorage.getDataDirectory(), json);
+            } catch (Exception e) {
+                System.err.println("Could not open embedded database, using JSON files: " + e.getMessage());
+            }
+        }
+        return json;
+    }
+}
@@ -0,0 +1,54 @@
+package services;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonical instances for strings that repeat across many records (session
+ * subjects such as "Pomodoro Session", empty notes), so a loaded history keeps
+ * one copy of each value instead of one per record. Unlike String.intern the
+ * pool belongs to its owner and is bounded: once it holds {@code maxEntries}
+ * values, new ones are returned as they are, so free text cannot grow it forever.
+ */
+public class StringDictionary {
+    private static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final Map<String, String> values = new HashMap<>();
+    private final int maxEntries;
+
+    public StringDictionary() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public StringDictionary(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The canonical instance equal to {@code value} (null stays null)
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.isEmpty()) {
+            return "";
+        }
+        String canonical = values.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (values.size() < maxEntries) {
+            values.put(value, value);
+        }
+        return value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public void clear() {
+        values.clear();
+    }
+}
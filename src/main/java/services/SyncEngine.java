@@ -0,0 +1,233 @@
+package services;
+
+import models.Task;
+
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reconciles two data directories (replicas) record by record.
+ * Each replica's {@link ChangeLog} gives the records changed since the last
+ * sync with the other replica, so only those are compared and copied; the
+ * cost follows the number of changes, not the size of the history.
+ *
+ * Versions are compared with per-record version vectors. When one side has
+ * seen every change of the other, its state (record or tombstone) wins.
+ * Concurrent changes are resolved by the later wall-clock time (then by
+ * replica id), and both sides end up with the merged vector.
+ */
+public class SyncEngine {
+
+    /**
+     * One data directory taking part in sync
+     */
+    public static final class Replica implements AutoCloseable {
+        // The configured backend (-Dstudyapp.storage), so sync works on the live data; both
+        // backends write single records, so only changed records are rewritten
+        private final StorageBackend storage;
+        private final ChangeLog log;
+
+        // Records read from this replica during one sync, loaded at most once per file
+        private Map<String, Task> tasks;
+        private final Map<YearMonth, SessionColumnStore> months = new HashMap<>();
+
+        private Replica(LocalStorage localStorage) {
+            localStorage.ensureDirectoriesExist();
+            this.storage = StorageBackend.create(localStorage);
+            this.log = ChangeLog.open(localStorage, storage);
+        }
+
+        public static Replica open(Path dataDirectory) {
+            return new Replica(new LocalStorage(dataDirectory));
+        }
+
+        public String getId() {
+            return log.getReplicaId();
+        }
+
+        private Task findTask(String id) {
+            if (tasks == null) {
+                tasks = new HashMap<>();
+                for (Task task : storage.loadTasks()) {
+                    tasks.put(task.getId(), task);
+                }
+            }
+            return tasks.get(id);
+        }
+
+        /**
+         * Sessions of the month containing the given start time
+         */
+        private SessionColumnStore findMonth(long startMicros) {
+            YearMonth month = YearMonth.from(SessionColumnStore.fromMicros(startMicros));
+            return months.computeIfAbsent(month, m -> {
+                SessionColumnStore store = new SessionColumnStore();
+                long from = SessionColumnStore.toMicros(m.atDay(1).atStartOfDay());
+                long to = SessionColumnStore.toMicros(m.plusMonths(1).atDay(1).atStartOfDay());
+                storage.querySessions(from, to, store);
+                return store;
+            });
+        }
+
+        private void forgetCachedRecords() {
+            tasks = null;
+            months.clear();
+        }
+
+        @Override
+        public void close() {
+            storage.close();
+        }
+    }
+
+    /**
+     * What one sync did
+     */
+    public static final class Result {
+        private int sentToFirst;
+        private int sentToSecond;
+        private int conflicts;
+        private int compared;
+
+        public int getSentToFirst() {
+            return sentToFirst;
+        }
+
+        public int getSentToSecond() {
+            return sentToSecond;
+        }
+
+        /**
+         * Records changed on both sides since the last sync (included in the sent counts)
+         */
+        public int getConflicts() {
+            return conflicts;
+        }
+
+        public int getCompared() {
+            return compared;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("compared %d records, %d -> first, %d -> second, %d conflicts",
+                    compared, sentToFirst, sentToSecond, conflicts);
+        }
+    }
+
+    public Result sync(Replica first, Replica second) {
+        first.log.refresh();
+        second.log.refresh();
+        if (first.getId().equals(second.getId())) {
+            // One is a copy of the other, made before replica ids recorded their directory
+            second.log.regenerateReplicaId();
+        }
+        first.forgetCachedRecords();
+        second.forgetCachedRecords();
+
+        // Everything up to here is compared now
+        long firstEnd = first.log.getLastSeq();
+        long secondEnd = second.log.getLastSeq();
+
+        Set<String> changed = new LinkedHashSet<>();
+        for (ChangeLog.Entry entry : first.log.getChangesSince(second.log.getSyncedSeq(first.getId()))) {
+            changed.add(entry.getKey());
+        }
+        for (ChangeLog.Entry entry : second.log.getChangesSince(first.log.getSyncedSeq(second.getId()))) {
+            changed.add(entry.getKey());
+        }
+
+        Result result = new Result();
+        for (String key : changed) {
+            result.compared++;
+            ChangeLog.Entry a = first.log.getLatest(key);
+            ChangeLog.Entry b = second.log.getLatest(key);
+            if (b == null) {
+                transfer(first, second, a, a.getVersion());
+                result.sentToSecond++;
+                continue;
+            }
+            if (a == null) {
+                transfer(second, first, b, b.getVersion());
+                result.sentToFirst++;
+                continue;
+            }
+
+            switch (a.getVersion().compare(b.getVersion())) {
+                case EQUAL:
+                    break;
+                case AFTER:
+                    transfer(first, second, a, a.getVersion());
+                    result.sentToSecond++;
+                    break;
+                case BEFORE:
+                    transfer(second, first, b, b.getVersion());
+                    result.sentToFirst++;
+                    break;
+                case CONCURRENT:
+                    result.conflicts++;
+                    VersionVector merged = a.getVersion().merge(b.getVersion());
+                    if (wins(a, b)) {
+                        transfer(first, second, a, merged);
+                        first.log.recordApplied(a, merged);
+                        result.sentToSecond++;
+                    } else {
+                        transfer(second, first, b, merged);
+                        second.log.recordApplied(b, merged);
+                        result.sentToFirst++;
+                    }
+                    break;
+            }
+        }
+
+        // Entries logged while applying compare as equal next time; anything a running
+        // app logged in the meantime is picked up by the next sync
+        second.log.setSyncedSeq(first.getId(), firstEnd);
+        first.log.setSyncedSeq(second.getId(), secondEnd);
+        return result;
+    }
+
+    /**
+     * Later change wins; the replica id breaks ties so both sides agree
+     */
+    private static boolean wins(ChangeLog.Entry a, ChangeLog.Entry b) {
+        if (a.getTimestamp() != b.getTimestamp()) {
+            return a.getTimestamp() > b.getTimestamp();
+        }
+        return a.getOrigin().compareTo(b.getOrigin()) >= 0;
+    }
+
+    /**
+     * Write one record's state from {@code source} into {@code target} and log it there
+     */
+    private void transfer(Replica source, Replica target, ChangeLog.Entry change, VersionVector version) {
+        if (ChangeLog.TASK.equals(change.getKind())) {
+            if (change.isDeleted()) {
+                Task tombstone = new Task();
+                tombstone.setId(change.getId());
+                target.storage.deleteTask(tombstone, null);
+            } else {
+                Task task = source.findTask(change.getId());
+                if (task == null) {
+                    return; // Log and data disagree; the next local change will log it again
+                }
+                target.storage.saveTask(task, null);
+            }
+        } else {
+            target.storage.removeSession(change.getId(), change.getStartMicros(), null);
+            if (!change.isDeleted()) {
+                SessionColumnStore month = source.findMonth(change.getStartMicros());
+                int row = month.indexOf(change.getId());
+                if (row < 0) {
+                    return;
+                }
+                target.storage.appendSession(month, row);
+            }
+        }
+        target.log.recordApplied(change, version);
+    }
+}
@@ -0,0 +1,190 @@
+package services;
+
+import models.Task;
+import models.TaskSortOrder;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.BiPredicate;
+
+/**
+ * Pre-sorted views of the task list, one balanced tree per sort key.
+ * Sort keys are snapshotted when a task is added or updated, so switching
+ * the sort order is a linear walk and editing a task repositions it in
+ * O(log n) instead of re-sorting the whole list.
+ *
+ * Ties are broken by insertion order, matching the stable sort used before,
+ * also for the orders that walk a tree backwards (newest first, name Z-A).
+ */
+public class TaskSortIndex {
+
+    private static final LocalDateTime NO_DATE = LocalDateTime.MIN;
+
+    /**
+     * Snapshot of a task's sort keys at the time it was (re)indexed
+     */
+    private static final class Entry {
+        final Task task;
+        final long sequence;
+        final LocalDateTime createdAt;
+        final CollationKey nameKey;
+        final int timeSpent;
+        final double progress;
+
+        Entry(Task task, long sequence, Collator collator) {
+            this.task = task;
+            this.sequence = sequence;
+            this.createdAt = task.getCreatedAt() != null ? task.getCreatedAt() : NO_DATE;
+            this.nameKey = collator.getCollationKey(task.getTitle() != null ? task.getTitle() : "");
+            this.timeSpent = task.getTotalTimeSpent();
+            this.progress = task.getProgressPercentage();
+        }
+    }
+
+    private final Collator collator;
+    private final Map<Task, Entry> entries = new HashMap<>();
+    private long nextSequence = 0;
+
+    private final NavigableSet<Entry> byCreatedAt = new TreeSet<>(
+            Comparator.comparing((Entry e) -> e.createdAt).thenComparingLong(e -> e.sequence));
+    private final NavigableSet<Entry> byName = new TreeSet<>(
+            Comparator.comparing((Entry e) -> e.nameKey).thenComparingLong(e -> e.sequence));
+    // Time spent and progress are only ever shown highest first
+    private final NavigableSet<Entry> byTimeSpent = new TreeSet<>(
+            Comparator.comparingInt((Entry e) -> -e.timeSpent).thenComparingLong(e -> e.sequence));
+    private final NavigableSet<Entry> byProgress = new TreeSet<>(
+            Comparator.comparingDouble((Entry e) -> -e.progress).thenComparingLong(e -> e.sequence));
+
+    public TaskSortIndex() {
+        // Collation keys are computed once per title instead of folding case on every comparison
+        this.collator = Collator.getInstance();
+        this.collator.setStrength(Collator.SECONDARY);
+    }
+
+    public void add(Task task) {
+        if (entries.containsKey(task)) {
+            update(task);
+            return;
+        }
+        Entry entry = new Entry(task, nextSequence++, collator);
+        entries.put(task, entry);
+        byCreatedAt.add(entry);
+        byName.add(entry);
+        byTimeSpent.add(entry);
+        byProgress.add(entry);
+    }
+
+    /**
+     * Reposition a task after its fields changed. Only the trees whose key
+     * actually changed are touched.
+     */
+    public void update(Task task) {
+        Entry old = entries.get(task);
+        if (old == null) {
+            add(task);
+            return;
+        }
+
+        Entry updated = new Entry(task, old.sequence, collator);
+        entries.put(task, updated);
+        reposition(byCreatedAt, old, updated, !old.createdAt.equals(updated.createdAt));
+        reposition(byName, old, updated, old.nameKey.compareTo(updated.nameKey) != 0);
+        reposition(byTimeSpent, old, updated, old.timeSpent != updated.timeSpent);
+        reposition(byProgress, old, updated, Double.compare(old.progress, updated.progress) != 0);
+    }
+
+    private static void reposition(NavigableSet<Entry> tree, Entry old, Entry updated, boolean keyChanged) {
+        // With an unchanged key the old snapshot compares equal to the new one, so it can stay
+        if (keyChanged) {
+            tree.remove(old);
+            tree.add(updated);
+        }
+    }
+
+    public void remove(Task task) {
+        Entry entry = entries.remove(task);
+        if (entry == null) {
+            return;
+        }
+        byCreatedAt.remove(entry);
+        byName.remove(entry);
+        byTimeSpent.remove(entry);
+        byProgress.remove(entry);
+    }
+
+    public void clear() {
+        entries.clear();
+        byCreatedAt.clear();
+        byName.clear();
+        byTimeSpent.clear();
+        byProgress.clear();
+        nextSequence = 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * All indexed tasks in the given order
+     */
+    public List<Task> sorted(TaskSortOrder order) {
+        List<Task> result = new ArrayList<>(entries.size());
+        Iterator<Entry> iterator;
+        switch (order) {
+            case OLDEST_FIRST:
+                iterator = byCreatedAt.iterator();
+                break;
+            case NAME_ASC:
+                iterator = byName.iterator();
+                break;
+            case NAME_DESC:
+                addDescending(byName, (a, b) -> a.nameKey.compareTo(b.nameKey) == 0, result);
+                return result;
+            case TIME_SPENT:
+                iterator = byTimeSpent.iterator();
+                break;
+            case PROGRESS:
+                iterator = byProgress.iterator();
+                break;
+            case NEWEST_FIRST:
+            default:
+                addDescending(byCreatedAt, (a, b) -> a.createdAt.equals(b.createdAt), result);
+                return result;
+        }
+
+        while (iterator.hasNext()) {
+            result.add(iterator.next().task);
+        }
+        return result;
+    }
+
+    /**
+     * Walk a tree from its highest key down. The walk also reverses ties, so each
+     * run of equal keys is turned back into insertion order.
+     */
+    private static void addDescending(NavigableSet<Entry> tree, BiPredicate<Entry, Entry> sameKey, List<Task> result) {
+        int runStart = result.size();
+        Entry runFirst = null;
+        for (Iterator<Entry> iterator = tree.descendingIterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (runFirst == null || !sameKey.test(runFirst, entry)) {
+                Collections.reverse(result.subList(runStart, result.size()));
+                runStart = result.size();
+                runFirst = entry;
+            }
+            result.add(entry.task);
+        }
+        Collections.reverse(result.subList(runStart, result.size()));
+    }
+}
@@ -7,8 +7,11 @@ import models.SessionConfiguration;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.Executor;
 
 public class TimerService {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
     private SessionConfiguration sessionConfiguration;
     private SessionType currentSessionType;
 
@@ -17,7 +20,13 @@ public class TimerService {
     private final BooleanProperty isBreak = new SimpleBooleanProperty(false);
     private final StringProperty timeDisplay = new SimpleStringProperty(formatTime(25 * 60));
 
-    private Thread timerThread;
+    private volatile Thread timerThread;
+    private volatile boolean running = false;
+    private volatile boolean backgroundMode = false;
+    private volatile long deadlineNanos;
+    private final Object timerLock = new Object();
+    private final Executor events; // Thread that property changes and callbacks run on
+    private final SettingsStore settings; // Saved per-type configurations; null keeps the defaults
     private LocalDateTime startTime;
     private Runnable onSessionComplete;
 
@@ -26,20 +35,49 @@ public class TimerService {
     }
 
     public TimerService(SessionType sessionType) {
+        this(sessionType, Platform::runLater);
+    }
+
+    /**
+     * UI timer that starts from the saved configuration and saves every
+     * configuration it is given.
+     */
+    public TimerService(SettingsStore settings) {
+        this(SessionType.WORK, Platform::runLater, settings);
+    }
+
+    public TimerService(SessionType sessionType, Executor events) {
+        this(sessionType, events, null);
+    }
+
+    /**
+     * Timer whose ticks and completion are delivered through {@code events}
+     * instead of the JavaFX application thread (e.g. a single-thread executor
+     * when running without a UI). Controls must be called on that thread too.
+     * With {@code settings}, configurations are loaded from and saved to it.
+     */
+    public TimerService(SessionType sessionType, Executor events, SettingsStore settings) {
+        this.events = events;
+        this.settings = settings;
         this.currentSessionType = sessionType;
-        this.sessionConfiguration = new SessionConfiguration(sessionType);
+        this.sessionConfiguration = loadConfiguration(sessionType);
         remainingSeconds.set(sessionConfiguration.getWorkDurationMinutes() * 60);
         timeDisplay.set(formatTime(sessionConfiguration.getWorkDurationMinutes() * 60));
 
         remainingSeconds.addListener((obs, oldVal, newVal) -> {
-            Platform.runLater(() -> timeDisplay.set(formatTime(newVal.intValue())));
+            // Display is not refreshed in background mode; it catches up on restore
+            if (!backgroundMode) {
+                events.execute(() -> timeDisplay.set(formatTime(newVal.intValue())));
+            }
         });
     }
 
     public void start() {
         if (!isRunning.get()) {
             isRunning.set(true);
+            running = true;
             startTime = LocalDateTime.now();
+            deadlineNanos = System.nanoTime() + remainingSeconds.get() * NANOS_PER_SECOND;
             timerThread = new Thread(this::runTimer);
             timerThread.setDaemon(true);
             timerThread.start();
@@ -47,6 +85,11 @@ public class TimerService {
     }
 
     public void pause() {
+        if (running) {
+            // Keep whatever time was left when the timer stopped
+            remainingSeconds.set(getSecondsUntilDeadline());
+        }
+        running = false;
         isRunning.set(false);
         if (timerThread != null) {
             timerThread.interrupt();
@@ -71,21 +114,75 @@ public class TimerService {
         remainingSeconds.set(sessionConfiguration.getWorkDurationMinutes() * 60);
     }
 
+    /**
+     * In background mode the timer thread sleeps until the session deadline
+     * instead of posting a UI update every second. Leaving background mode
+     * brings remainingSeconds and the display up to date with one update.
+     * Must be called on the JavaFX application thread.
+     */
+    public void setBackgroundMode(boolean backgroundMode) {
+        if (this.backgroundMode == backgroundMode) {
+            return;
+        }
+        this.backgroundMode = backgroundMode;
+
+        // Wake the timer thread so it picks its new wait interval
+        synchronized (timerLock) {
+            timerLock.notifyAll();
+        }
+
+        if (!backgroundMode) {
+            if (running) {
+                remainingSeconds.set(getSecondsUntilDeadline());
+            }
+            timeDisplay.set(formatTime(remainingSeconds.get()));
+        }
+    }
+
+    public boolean isBackgroundMode() {
+        return backgroundMode;
+    }
+
     private void runTimer() {
-        while (isRunning.get() && remainingSeconds.get() > 0) {
+        Thread self = Thread.currentThread();
+        while (running && timerThread == self) {
+            long nanosLeft = deadlineNanos - System.nanoTime();
+            if (nanosLeft <= 0) {
+                break;
+            }
+
+            // Foreground: wake on the next whole second. Background: wake only at the deadline.
+            long waitNanos = backgroundMode ? nanosLeft : nanosLeft % NANOS_PER_SECOND;
+            if (waitNanos == 0) {
+                waitNanos = NANOS_PER_SECOND;
+            }
+
             try {
-                Thread.sleep(1000);
-                if (isRunning.get()) {
-                    Platform.runLater(() -> remainingSeconds.set(remainingSeconds.get() - 1));
+                synchronized (timerLock) {
+                    timerLock.wait(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
                 }
             } catch (InterruptedException e) {
-                break;
+                return;
+            }
+
+            if (running && !backgroundMode && timerThread == self) {
+                int seconds = getSecondsUntilDeadline();
+                events.execute(() -> {
+                    if (running && timerThread == self) {
+                        remainingSeconds.set(seconds);
+                    }
+                });
             }
         }
 
-        if (remainingSeconds.get() <= 0) {
-            Platform.runLater(() -> {
+        if (running && timerThread == self && getSecondsUntilDeadline() <= 0) {
+            events.execute(() -> {
+                if (!running || timerThread != self) {
+                    return;
+                }
+                running = false;
                 isRunning.set(false);
+                remainingSeconds.set(0);
                 if (onSessionComplete != null) {
                     onSessionComplete.run();
                 }
@@ -93,6 +190,15 @@ public class TimerService {
         }
     }
 
+    private int getSecondsUntilDeadline() {
+        long nanosLeft = deadlineNanos - System.nanoTime();
+        if (nanosLeft <= 0) {
+            return 0;
+        }
+        // Round up so the display shows 00:01 until the deadline is actually reached
+        return (int) ((nanosLeft + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+    }
+
     private static String formatTime(int totalSeconds) {
         int minutes = totalSeconds / 60;
         int seconds = totalSeconds % 60;
@@ -115,16 +221,27 @@ public class TimerService {
     public void setSessionType(SessionType sessionType) {
         pause();
         this.currentSessionType = sessionType;
-        this.sessionConfiguration = new SessionConfiguration(sessionType);
+        this.sessionConfiguration = loadConfiguration(sessionType);
         reset();
     }
 
+    private SessionConfiguration loadConfiguration(SessionType sessionType) {
+        return settings != null ? settings.getSessionConfiguration(sessionType) : new SessionConfiguration(sessionType);
+    }
+
     public SessionConfiguration getSessionConfiguration() {
         return sessionConfiguration;
     }
 
+    /**
+     * Switches to {@code sessionConfiguration} and saves it for its session type.
+     * Call this again after changing the configuration in place to keep the change.
+     */
     public void setSessionConfiguration(SessionConfiguration sessionConfiguration) {
         pause();
+        if (settings != null) {
+            settings.setSessionConfiguration(sessionConfiguration);
+        }
         this.sessionConfiguration = sessionConfiguration;
         this.currentSessionType = sessionConfiguration.getSessionType();
         reset();
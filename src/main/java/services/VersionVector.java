@@ -0,0 +1,97 @@
+package services;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-record version vector: how many times each replica has changed the record.
+ * Instances are immutable; {@link #increment} and {@link #merge} return new vectors.
+ */
+public final class VersionVector {
+
+    public enum Order {
+        EQUAL,
+        BEFORE,     // this vector is older than the other
+        AFTER,      // this vector includes every change of the other, and more
+        CONCURRENT  // both have changes the other has not seen
+    }
+
+    private final Map<String, Long> counters;
+
+    public VersionVector() {
+        this(new TreeMap<>());
+    }
+
+    private VersionVector(Map<String, Long> counters) {
+        this.counters = counters;
+    }
+
+    public long get(String replicaId) {
+        return counters.getOrDefault(replicaId, 0L);
+    }
+
+    public VersionVector increment(String replicaId) {
+        Map<String, Long> next = new TreeMap<>(counters);
+        next.merge(replicaId, 1L, Long::sum);
+        return new VersionVector(next);
+    }
+
+    /**
+     * Pointwise maximum: a vector that has seen the changes of both
+     */
+    public VersionVector merge(VersionVector other) {
+        Map<String, Long> next = new TreeMap<>(counters);
+        for (Map.Entry<String, Long> entry : other.counters.entrySet()) {
+            next.merge(entry.getKey(), entry.getValue(), Math::max);
+        }
+        return new VersionVector(next);
+    }
+
+    public Order compare(VersionVector other) {
+        boolean ahead = false;
+        boolean behind = false;
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            long theirs = other.get(entry.getKey());
+            ahead |= entry.getValue() > theirs;
+            behind |= entry.getValue() < theirs;
+        }
+        for (Map.Entry<String, Long> entry : other.counters.entrySet()) {
+            behind |= entry.getValue() > get(entry.getKey());
+        }
+        if (ahead && behind) {
+            return Order.CONCURRENT;
+        }
+        return ahead ? Order.AFTER : behind ? Order.BEFORE : Order.EQUAL;
+    }
+
+    public JSONObject toJson() {
+        return new JSONObject(counters);
+    }
+
+    public static VersionVector fromJson(JSONObject json) {
+        Map<String, Long> counters = new TreeMap<>();
+        if (json != null) {
+            for (String replicaId : json.keySet()) {
+                counters.put(replicaId, json.getLong(replicaId));
+            }
+        }
+        return new VersionVector(counters);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof VersionVector && counters.equals(((VersionVector) o).counters);
+    }
+
+    @Override
+    public int hashCode() {
+        return counters.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return counters.toString();
+    }
+}